@@ -0,0 +1,141 @@
+package com.btlab.fdcalculator.client;
+
+import com.btlab.fdcalculator.model.dto.PagedProductRuleResponse;
+import com.btlab.fdcalculator.model.dto.ProductDetailsDTO;
+import com.btlab.fdcalculator.model.dto.ProductInterestDTO;
+import com.btlab.fdcalculator.model.dto.ProductRuleDTO;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Caching decorator for a PricingApiClient (the Feign client or the mock).
+ *
+ * Product details, interest rates and rules each get their own Caffeine cache with their own
+ * TTL. Entries are reloaded in the background once they are older than the refresh interval
+ * (refresh-ahead), so callers keep getting the cached value while it is refreshed and
+ * only pay API latency on a cold miss or after the TTL. Each cache is bounded by weight
+ * (number of DTOs held) with Caffeine's W-TinyLFU eviction.
+ *
+ * Concurrent misses for the same key are coalesced: Caffeine runs one load per key and the
+ * other callers wait for its result, so an expiry costs one upstream call per key.
+ *
+ * Errors from the delegate propagate unchanged on a miss. A failed background refresh
+ * keeps the old value until it expires. Null responses are not cached.
+ */
+public class CachingPricingApiClient implements PricingApiClient {
+
+    private final LoadingCache<String, ProductDetailsDTO> productDetails;
+    private final LoadingCache<String, List<ProductInterestDTO>> interestRates;
+    private final LoadingCache<ProductKey, ProductInterestDTO> interestRatesByCode;
+    private final LoadingCache<RulesPageKey, PagedProductRuleResponse> rulePages;
+    private final LoadingCache<ProductKey, ProductRuleDTO> rulesByCode;
+
+    public CachingPricingApiClient(PricingApiClient delegate, Settings productSettings,
+                                   Settings rateSettings, Settings ruleSettings) {
+        this.productDetails = build(productSettings, delegate::getProductDetails, details -> 1);
+        this.interestRates = build(rateSettings, delegate::getInterestRates, List::size);
+        this.interestRatesByCode = build(rateSettings,
+            key -> delegate.getInterestRateByCode(key.productCode(), key.code()), rate -> 1);
+        this.rulePages = build(ruleSettings,
+            key -> delegate.getRules(key.productCode(), key.page(), key.size()),
+            page -> page.content() == null ? 1 : Math.max(1, page.content().size()));
+        this.rulesByCode = build(ruleSettings,
+            key -> delegate.getRuleByCode(key.productCode(), key.code()), rule -> 1);
+    }
+
+    @Override
+    public ProductDetailsDTO getProductDetails(String productCode) {
+        return productDetails.get(productCode);
+    }
+
+    @Override
+    public List<ProductInterestDTO> getInterestRates(String productCode) {
+        return interestRates.get(productCode);
+    }
+
+    @Override
+    public ProductInterestDTO getInterestRateByCode(String productCode, String rateCode) {
+        return interestRatesByCode.get(new ProductKey(productCode, rateCode));
+    }
+
+    @Override
+    public PagedProductRuleResponse getRules(String productCode, int page, int size) {
+        return rulePages.get(new RulesPageKey(productCode, page, size));
+    }
+
+    @Override
+    public ProductRuleDTO getRuleByCode(String productCode, String ruleCode) {
+        return rulesByCode.get(new ProductKey(productCode, ruleCode));
+    }
+
+    /**
+     * Drop every cached response for a product, so the next call goes to the API
+     */
+    public void invalidateProduct(String productCode) {
+        productDetails.invalidate(productCode);
+        interestRates.invalidate(productCode);
+        interestRatesByCode.asMap().keySet().removeIf(key -> key.productCode().equals(productCode));
+        rulePages.asMap().keySet().removeIf(key -> key.productCode().equals(productCode));
+        rulesByCode.asMap().keySet().removeIf(key -> key.productCode().equals(productCode));
+    }
+
+    /**
+     * Hit/miss/eviction statistics per cache
+     */
+    public Map<String, Map<String, Object>> stats() {
+        Map<String, Map<String, Object>> stats = new LinkedHashMap<>();
+        stats.put("product_details", stats(productDetails));
+        stats.put("interest_rates", stats(interestRates));
+        stats.put("interest_rates_by_code", stats(interestRatesByCode));
+        stats.put("rule_pages", stats(rulePages));
+        stats.put("rules_by_code", stats(rulesByCode));
+        return stats;
+    }
+
+    private static Map<String, Object> stats(LoadingCache<?, ?> cache) {
+        CacheStats s = cache.stats();
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("size", cache.estimatedSize());
+        m.put("hits", s.hitCount());
+        m.put("misses", s.missCount());
+        m.put("hit_rate", s.hitRate());
+        m.put("evictions", s.evictionCount());
+        m.put("evicted_weight", s.evictionWeight());
+        m.put("load_failures", s.loadFailureCount());
+        m.put("average_load_millis", s.averageLoadPenalty() / 1_000_000.0);
+        return m;
+    }
+
+    private static <K, V> LoadingCache<K, V> build(Settings settings, Function<K, V> loader, ToIntFunction<V> weigher) {
+        return Caffeine.newBuilder()
+            .expireAfterWrite(settings.ttl())
+            .refreshAfterWrite(settings.refreshAfter())
+            .maximumWeight(settings.maximumWeight())
+            .weigher((K key, V value) -> weigher.applyAsInt(value))
+            .recordStats()
+            .build(loader::apply);
+    }
+
+    /**
+     * Cache settings for one kind of pricing data; refreshAfter must be shorter than ttl
+     */
+    public record Settings(Duration ttl, Duration refreshAfter, long maximumWeight) {
+        public Settings {
+            if (refreshAfter.compareTo(ttl) >= 0) {
+                throw new IllegalArgumentException("Refresh interval " + refreshAfter + " must be shorter than TTL " + ttl);
+            }
+        }
+    }
+
+    private record ProductKey(String productCode, String code) {}
+
+    private record RulesPageKey(String productCode, int page, int size) {}
+}
@@ -4,6 +4,7 @@ import com.btlab.fdcalculator.model.dto.PagedProductRuleResponse;
 import com.btlab.fdcalculator.model.dto.ProductDetailsDTO;
 import com.btlab.fdcalculator.model.dto.ProductInterestDTO;
 import com.btlab.fdcalculator.model.dto.ProductRuleDTO;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 
@@ -12,6 +13,7 @@ import java.util.List;
 
 @Component
 @Profile("mock")
+@Qualifier("pricingApiTarget")
 public class MockPricingApiClient implements PricingApiClient {
 
     @Override
@@ -11,7 +11,8 @@ import org.springframework.web.bind.annotation.RequestParam;
 
 import java.util.List;
 
-@FeignClient(name = "pricing-api", url = "${pricing.api.url}")
+// Not primary: services get the decorated client from PricingClientConfig
+@FeignClient(name = "pricing-api", url = "${pricing.api.url}", qualifiers = "pricingApiTarget", primary = false)
 public interface PricingApiClient {
 
     // Get product details including interestType and compoundingFrequency
@@ -0,0 +1,85 @@
+package com.btlab.fdcalculator.client;
+
+import com.btlab.fdcalculator.model.dto.PagedProductRuleResponse;
+import com.btlab.fdcalculator.model.dto.ProductRuleDTO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Fetches every page of a product's rules. The first page is fetched on the calling thread;
+ * when it reports the page count, the remaining pages are fetched concurrently on the
+ * pricing fan-out executor. Page fetches never wait on other tasks, so the executor cannot
+ * deadlock on itself.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductRulePager {
+
+    private static final int RULES_PAGE_SIZE = 100;
+    private static final int MAX_RULE_PAGES = 1000;
+
+    private final PricingApiClient pricingApiClient;
+    @Qualifier("pricingFanOutExecutor")
+    private final ExecutorService pricingFanOutExecutor;
+
+    /**
+     * Add all rules of a product to the map, keyed by rule code. If a page fails the
+     * exception propagates and the map keeps the pages fetched so far.
+     */
+    public void fetchAll(String productCode, Map<String, ProductRuleDTO> rules) {
+        PagedProductRuleResponse first = pricingApiClient.getRules(productCode, 0, RULES_PAGE_SIZE);
+        if (!addPage(first, rules)) {
+            return;
+        }
+        if (first.totalPages() <= 1) {
+            // Page count not reported: walk the pages one by one
+            for (int page = 1; page < MAX_RULE_PAGES; page++) {
+                if (!addPage(pricingApiClient.getRules(productCode, page, RULES_PAGE_SIZE), rules)) {
+                    return;
+                }
+            }
+            return;
+        }
+        List<CompletableFuture<PagedProductRuleResponse>> pages = new ArrayList<>();
+        for (int page = 1; page < Math.min(first.totalPages(), MAX_RULE_PAGES); page++) {
+            int pageNumber = page;
+            pages.add(CompletableFuture.supplyAsync(
+                () -> pricingApiClient.getRules(productCode, pageNumber, RULES_PAGE_SIZE), pricingFanOutExecutor));
+        }
+        for (CompletableFuture<PagedProductRuleResponse> page : pages) {
+            addPage(join(page), rules);
+        }
+    }
+
+    /**
+     * Add a page of rules, returning whether there are more pages after it
+     */
+    private static boolean addPage(PagedProductRuleResponse response, Map<String, ProductRuleDTO> rules) {
+        if (response == null || response.content() == null) {
+            return false;
+        }
+        for (ProductRuleDTO rule : response.content()) {
+            rules.put(rule.ruleCode(), rule);
+        }
+        return !response.last() && !response.content().isEmpty();
+    }
+
+    private static <T> T join(CompletableFuture<T> call) {
+        try {
+            return call.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.btlab.fdcalculator.client;
+
+import com.btlab.fdcalculator.exception.PricingUnavailableException;
+import com.btlab.fdcalculator.model.dto.PagedProductRuleResponse;
+import com.btlab.fdcalculator.model.dto.ProductDetailsDTO;
+import com.btlab.fdcalculator.model.dto.ProductInterestDTO;
+import com.btlab.fdcalculator.model.dto.ProductRuleDTO;
+import feign.FeignException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Resilience decorator for a PricingApiClient (the Feign client or the mock).
+ *
+ * Every call runs on a small bounded pool (the bulkhead) instead of the servlet thread, and
+ * the caller waits at most the call timeout for it. Each endpoint has its own circuit breaker:
+ * once too many calls fail or are slow it opens and calls are rejected immediately until a
+ * few trial calls succeed again. A full bulkhead, an open breaker or a timeout surface as
+ * PricingUnavailableException, so a pricing outage costs callers milliseconds rather than
+ * the API's latency; callers fall back to the last-known-good pricing snapshot or rate.
+ *
+ * Client errors (unknown product or code) propagate unchanged and do not count as failures.
+ */
+public class ResilientPricingApiClient implements PricingApiClient {
+
+    private final PricingApiClient delegate;
+    private final ThreadPoolExecutor bulkhead;
+    private final long timeoutMs;
+
+    private final CircuitBreaker productDetails;
+    private final CircuitBreaker interestRates;
+    private final CircuitBreaker interestRateByCode;
+    private final CircuitBreaker rules;
+    private final CircuitBreaker ruleByCode;
+
+    public ResilientPricingApiClient(PricingApiClient delegate, Settings settings) {
+        this.delegate = delegate;
+        this.timeoutMs = settings.timeout().toMillis();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.bulkhead = new ThreadPoolExecutor(settings.maxConcurrentCalls(), settings.maxConcurrentCalls(),
+            60, TimeUnit.SECONDS,
+            settings.maxQueuedCalls() > 0 ? new ArrayBlockingQueue<>(settings.maxQueuedCalls()) : new SynchronousQueue<>(),
+            runnable -> {
+                Thread thread = new Thread(runnable, "pricing-api-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.AbortPolicy());
+        this.bulkhead.allowCoreThreadTimeOut(true);
+
+        CircuitBreakerConfig config = CircuitBreakerConfig.custom()
+            .slidingWindowSize(settings.slidingWindowSize())
+            .minimumNumberOfCalls(settings.minimumCalls())
+            .failureRateThreshold(settings.failureRateThreshold())
+            .slowCallRateThreshold(settings.failureRateThreshold())
+            .slowCallDurationThreshold(settings.slowCall())
+            .waitDurationInOpenState(settings.openWait())
+            .permittedNumberOfCallsInHalfOpenState(settings.halfOpenCalls())
+            .ignoreException(ResilientPricingApiClient::isClientError)
+            .build();
+        this.productDetails = CircuitBreaker.of("product-details", config);
+        this.interestRates = CircuitBreaker.of("interest-rates", config);
+        this.interestRateByCode = CircuitBreaker.of("interest-rate-by-code", config);
+        this.rules = CircuitBreaker.of("rules", config);
+        this.ruleByCode = CircuitBreaker.of("rule-by-code", config);
+    }
+
+    @Override
+    public ProductDetailsDTO getProductDetails(String productCode) {
+        return call(productDetails, () -> delegate.getProductDetails(productCode));
+    }
+
+    @Override
+    public List<ProductInterestDTO> getInterestRates(String productCode) {
+        return call(interestRates, () -> delegate.getInterestRates(productCode));
+    }
+
+    @Override
+    public ProductInterestDTO getInterestRateByCode(String productCode, String rateCode) {
+        return call(interestRateByCode, () -> delegate.getInterestRateByCode(productCode, rateCode));
+    }
+
+    @Override
+    public PagedProductRuleResponse getRules(String productCode, int page, int size) {
+        return call(rules, () -> delegate.getRules(productCode, page, size));
+    }
+
+    @Override
+    public ProductRuleDTO getRuleByCode(String productCode, String ruleCode) {
+        return call(ruleByCode, () -> delegate.getRuleByCode(productCode, ruleCode));
+    }
+
+    /**
+     * Circuit breaker state and call counts per endpoint, plus bulkhead occupancy
+     */
+    public Map<String, Map<String, Object>> stats() {
+        Map<String, Map<String, Object>> stats = new LinkedHashMap<>();
+        for (CircuitBreaker breaker : List.of(productDetails, interestRates, interestRateByCode, rules, ruleByCode)) {
+            CircuitBreaker.Metrics metrics = breaker.getMetrics();
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("state", breaker.getState().name());
+            m.put("failure_rate", metrics.getFailureRate());
+            m.put("slow_call_rate", metrics.getSlowCallRate());
+            m.put("successful_calls", metrics.getNumberOfSuccessfulCalls());
+            m.put("failed_calls", metrics.getNumberOfFailedCalls());
+            m.put("slow_calls", metrics.getNumberOfSlowCalls());
+            m.put("rejected_calls", metrics.getNumberOfNotPermittedCalls());
+            stats.put(breaker.getName(), m);
+        }
+        Map<String, Object> pool = new LinkedHashMap<>();
+        pool.put("active_calls", bulkhead.getActiveCount());
+        pool.put("queued_calls", bulkhead.getQueue().size());
+        pool.put("max_concurrent_calls", bulkhead.getMaximumPoolSize());
+        stats.put("bulkhead", pool);
+        return stats;
+    }
+
+    public void shutdown() {
+        bulkhead.shutdownNow();
+    }
+
+    private <T> T call(CircuitBreaker breaker, Callable<T> call) {
+        if (!breaker.tryAcquirePermission()) {
+            throw new PricingUnavailableException("Pricing API circuit " + breaker.getName() + " is open");
+        }
+        long start = System.nanoTime();
+        Future<T> future;
+        try {
+            future = bulkhead.submit(call);
+        } catch (RejectedExecutionException e) {
+            // Our own limit, not a sign that the API is failing
+            breaker.releasePermission();
+            throw new PricingUnavailableException("Pricing API bulkhead is full", e);
+        }
+        try {
+            T result = future.get(timeoutMs, TimeUnit.MILLISECONDS);
+            breaker.onSuccess(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            breaker.onError(System.nanoTime() - start, TimeUnit.NANOSECONDS, e);
+            throw new PricingUnavailableException(
+                "Pricing API call " + breaker.getName() + " timed out after " + timeoutMs + " ms", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            breaker.onError(System.nanoTime() - start, TimeUnit.NANOSECONDS, cause);
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new PricingUnavailableException("Pricing API call " + breaker.getName() + " failed", cause);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            breaker.releasePermission();
+            Thread.currentThread().interrupt();
+            throw new PricingUnavailableException("Interrupted waiting for pricing API call " + breaker.getName(), e);
+        }
+    }
+
+    private static boolean isClientError(Throwable e) {
+        // 4xx from the API, or the mock's "not found"
+        return e instanceof IllegalArgumentException
+            || (e instanceof FeignException feignException && feignException.status() >= 400 && feignException.status() < 500);
+    }
+
+    /**
+     * Bulkhead, timeout and circuit breaker settings, shared by all endpoints
+     *
+     * @param failureRateThreshold percentage of failed (or slow) calls in the window that opens a breaker
+     * @param slowCall             calls taking longer than this count as slow
+     * @param openWait             how long an open breaker rejects calls before letting trial calls through
+     */
+    public record Settings(int maxConcurrentCalls, int maxQueuedCalls, Duration timeout,
+                           int slidingWindowSize, int minimumCalls, float failureRateThreshold,
+                           Duration slowCall, Duration openWait, int halfOpenCalls) {
+    }
+}
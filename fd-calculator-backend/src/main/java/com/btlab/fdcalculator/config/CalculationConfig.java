@@ -0,0 +1,30 @@
+package com.btlab.fdcalculator.config;
+
+import com.btlab.fdcalculator.util.CompoundFactorTable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Configuration for the FD calculation math
+ */
+@Configuration
+public class CalculationConfig {
+
+    @Bean
+    public CompoundFactorTable compoundFactorTable(
+            @Value("${fd.math.factor-table.entries:65536}") int entryBudget) {
+        return new CompoundFactorTable(entryBudget);
+    }
+
+    /**
+     * Fork-join pool for portfolio projections, kept apart from the common pool used by batch calculations
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool projectionPool(
+            @Value("${fd.projection.parallelism:0}") int parallelism) {
+        return new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+}
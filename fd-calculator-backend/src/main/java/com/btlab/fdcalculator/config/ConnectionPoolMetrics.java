@@ -0,0 +1,96 @@
+package com.btlab.fdcalculator.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hikari connection pool metrics: how long callers wait for a connection, how long they
+ * hold it, and how often the pool runs dry. Installed on the application's HikariDataSource
+ * before its pool starts. A rising wait time with idle CPUs means connections, not compute,
+ * limit throughput.
+ */
+@Component
+public class ConnectionPoolMetrics implements MetricsTrackerFactory, BeanPostProcessor {
+
+    // Acquisitions slower than this count as having waited for a free connection
+    private static final long WAIT_THRESHOLD_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder waits = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder usages = new LongAdder();
+    private final LongAdder usageMillis = new LongAdder();
+    private final LongAccumulator maxUsageMillis = new LongAccumulator(Math::max, 0);
+
+    private volatile PoolStats poolStats;
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof HikariDataSource dataSource && dataSource.getMetricsTrackerFactory() == null) {
+            dataSource.setMetricsTrackerFactory(this);
+        }
+        return bean;
+    }
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        this.poolStats = poolStats;
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                acquisitions.increment();
+                waitNanos.add(elapsedAcquiredNanos);
+                maxWaitNanos.accumulate(elapsedAcquiredNanos);
+                if (elapsedAcquiredNanos > WAIT_THRESHOLD_NANOS) {
+                    waits.increment();
+                }
+            }
+
+            @Override
+            public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+                usages.increment();
+                usageMillis.add(elapsedBorrowedMillis);
+                maxUsageMillis.accumulate(elapsedBorrowedMillis);
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                timeouts.increment();
+            }
+        };
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        PoolStats pool = poolStats;
+        if (pool != null) {
+            stats.put("active_connections", pool.getActiveConnections());
+            stats.put("idle_connections", pool.getIdleConnections());
+            stats.put("total_connections", pool.getTotalConnections());
+            stats.put("max_connections", pool.getMaxConnections());
+            stats.put("threads_waiting", pool.getPendingThreads());
+        }
+        long acquired = acquisitions.sum();
+        long used = usages.sum();
+        stats.put("acquisitions", acquired);
+        stats.put("waited_acquisitions", waits.sum());
+        stats.put("average_wait_millis", acquired == 0 ? 0 : waitNanos.sum() / 1_000_000.0 / acquired);
+        stats.put("max_wait_millis", maxWaitNanos.get() / 1_000_000.0);
+        stats.put("timeouts", timeouts.sum());
+        stats.put("average_usage_millis", used == 0 ? 0 : (double) usageMillis.sum() / used);
+        stats.put("max_usage_millis", maxUsageMillis.get());
+        return stats;
+    }
+}
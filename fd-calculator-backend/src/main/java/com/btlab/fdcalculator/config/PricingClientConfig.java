@@ -0,0 +1,68 @@
+package com.btlab.fdcalculator.config;
+
+import com.btlab.fdcalculator.client.CachingPricingApiClient;
+import com.btlab.fdcalculator.client.PricingApiClient;
+import com.btlab.fdcalculator.client.ResilientPricingApiClient;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Decorates the active pricing client (Feign or mock, registered as "pricingApiTarget")
+ * with circuit breakers and a bulkhead, then caching on top, so cache hits never touch the
+ * API; services inject PricingApiClient and get the decorated primary bean
+ */
+@Configuration
+public class PricingClientConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ResilientPricingApiClient resilientPricingApiClient(
+            @Qualifier("pricingApiTarget") PricingApiClient target,
+            @Value("${pricing.resilience.max-concurrent-calls:16}") int maxConcurrentCalls,
+            @Value("${pricing.resilience.max-queued-calls:32}") int maxQueuedCalls,
+            @Value("${pricing.resilience.timeout-ms:2000}") long timeoutMs,
+            @Value("${pricing.resilience.sliding-window-size:20}") int slidingWindowSize,
+            @Value("${pricing.resilience.minimum-calls:10}") int minimumCalls,
+            @Value("${pricing.resilience.failure-rate-threshold:50}") float failureRateThreshold,
+            @Value("${pricing.resilience.slow-call-ms:1000}") long slowCallMs,
+            @Value("${pricing.resilience.open-wait-ms:30000}") long openWaitMs,
+            @Value("${pricing.resilience.half-open-calls:3}") int halfOpenCalls) {
+        return new ResilientPricingApiClient(target, new ResilientPricingApiClient.Settings(
+            maxConcurrentCalls, maxQueuedCalls, Duration.ofMillis(timeoutMs),
+            slidingWindowSize, minimumCalls, failureRateThreshold,
+            Duration.ofMillis(slowCallMs), Duration.ofMillis(openWaitMs), halfOpenCalls));
+    }
+
+    @Bean
+    @Primary
+    public CachingPricingApiClient cachingPricingApiClient(
+            ResilientPricingApiClient target,
+            @Value("${pricing.cache.product-details.ttl-ms:3600000}") long productTtlMs,
+            @Value("${pricing.cache.product-details.refresh-ms:1800000}") long productRefreshMs,
+            @Value("${pricing.cache.interest-rates.ttl-ms:900000}") long rateTtlMs,
+            @Value("${pricing.cache.interest-rates.refresh-ms:600000}") long rateRefreshMs,
+            @Value("${pricing.cache.rules.ttl-ms:900000}") long ruleTtlMs,
+            @Value("${pricing.cache.rules.refresh-ms:600000}") long ruleRefreshMs,
+            @Value("${pricing.cache.max-weight:10000}") long maxWeight) {
+        return new CachingPricingApiClient(target,
+            new CachingPricingApiClient.Settings(Duration.ofMillis(productTtlMs), Duration.ofMillis(productRefreshMs), maxWeight),
+            new CachingPricingApiClient.Settings(Duration.ofMillis(rateTtlMs), Duration.ofMillis(rateRefreshMs), maxWeight),
+            new CachingPricingApiClient.Settings(Duration.ofMillis(ruleTtlMs), Duration.ofMillis(ruleRefreshMs), maxWeight));
+    }
+
+    /**
+     * Threads for fetching a product's details, rate slabs and rule pages concurrently
+     * while building a pricing snapshot
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService pricingFanOutExecutor(
+            @Value("${pricing.snapshot.fan-out-threads:8}") int threads) {
+        return Executors.newFixedThreadPool(threads);
+    }
+}
@@ -0,0 +1,25 @@
+package com.btlab.fdcalculator.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Configuration for background product rule sync jobs
+ */
+@Configuration
+public class RuleSyncConfig {
+
+    /**
+     * Workers syncing products of a sync-all job; bounds the load a catalog refresh puts
+     * on the Product & Pricing API and the database
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService ruleSyncExecutor(
+            @Value("${fd.sync.parallelism:4}") int parallelism) {
+        return Executors.newFixedThreadPool(parallelism);
+    }
+}
@@ -1,7 +1,22 @@
 package com.btlab.fdcalculator.controller;
 
+import com.btlab.fdcalculator.client.CachingPricingApiClient;
+import com.btlab.fdcalculator.client.ResilientPricingApiClient;
+import com.btlab.fdcalculator.config.ConnectionPoolMetrics;
+import com.btlab.fdcalculator.model.domain.CategoryAliasIndex;
+import com.btlab.fdcalculator.model.domain.ProductPricingSnapshot;
 import com.btlab.fdcalculator.model.dto.CategoryDTO;
+import com.btlab.fdcalculator.model.dto.RuleSyncJobStatus;
+import com.btlab.fdcalculator.model.dto.RuleSyncResult;
+import com.btlab.fdcalculator.service.CalculationAuditService;
+import com.btlab.fdcalculator.service.CalculationResultCacheService;
+import com.btlab.fdcalculator.service.CalculationRetentionService;
+import com.btlab.fdcalculator.service.CategoryIndexService;
+import com.btlab.fdcalculator.service.PricingSnapshotService;
+import com.btlab.fdcalculator.service.QuoteDedupeService;
 import com.btlab.fdcalculator.service.ProductRuleSyncService;
+import com.btlab.fdcalculator.service.RuleSyncJobService;
+import com.btlab.fdcalculator.util.CompoundFactorTable;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -28,6 +43,17 @@ import java.util.Map;
 public class AdminController {
 
     private final ProductRuleSyncService productRuleSyncService;
+    private final PricingSnapshotService pricingSnapshotService;
+    private final CompoundFactorTable compoundFactorTable;
+    private final CachingPricingApiClient cachingPricingApiClient;
+    private final ResilientPricingApiClient resilientPricingApiClient;
+    private final CategoryIndexService categoryIndexService;
+    private final RuleSyncJobService ruleSyncJobService;
+    private final CalculationAuditService calculationAuditService;
+    private final ConnectionPoolMetrics connectionPoolMetrics;
+    private final CalculationRetentionService calculationRetentionService;
+    private final QuoteDedupeService quoteDedupeService;
+    private final CalculationResultCacheService calculationResultCacheService;
 
     @Operation(
         summary = "Sync product rules from Product & Pricing API",
@@ -41,10 +67,11 @@ public class AdminController {
             
             **Process:**
             1. Calls Product & Pricing API's `/api/rules?product_code={productCode}` endpoint
-            2. Retrieves all product rules (MIN001, MAX001, SR001, JR001, GOLD, etc.)
+            2. Retrieves all pages of product rules (MIN001, MAX001, SR001, JR001, GOLD, etc.), in parallel
             3. Parses rule codes and extracts category information
-            4. Updates or creates Category records in local database
-            5. Returns success/failure status
+            4. Compares them with the stored categories in one query
+            5. Inserts new and updates changed Category records in JDBC batches; unchanged ones are not written
+            6. Returns success/failure status with inserted/updated/unchanged counts
             
             **Rule Naming Convention:**
             - **SR001, JR001, DY001**: Customer category rules
@@ -85,7 +112,12 @@ public class AdminController {
                     value = """
                         {
                           "status": "success",
-                          "message": "Successfully synced product rules for FD001"
+                          "message": "Successfully synced product rules for FD001",
+                          "rules_fetched": 10,
+                          "inserted": 0,
+                          "updated": 1,
+                          "unchanged": 6,
+                          "skipped": 3
                         }
                         """
                 )
@@ -110,16 +142,23 @@ public class AdminController {
         )
     })
     @PostMapping("/sync-product-rules/{productCode}")
-    public ResponseEntity<Map<String, String>> syncProductRules(
+    public ResponseEntity<Map<String, Object>> syncProductRules(
         @PathVariable 
         @Parameter(description = "Product code", example = "FD001") 
         String productCode
     ) {
         try {
-            productRuleSyncService.syncProductRulesToCategories(productCode);
+            // Sync from the live API, not from cached rule pages
+            cachingPricingApiClient.invalidateProduct(productCode);
+            RuleSyncResult result = productRuleSyncService.syncProductRulesToCategories(productCode);
             return ResponseEntity.ok(Map.of(
                 "status", "success",
-                "message", "Successfully synced product rules for " + productCode
+                "message", "Successfully synced product rules for " + productCode,
+                "rules_fetched", result.rules_fetched(),
+                "inserted", result.inserted(),
+                "updated", result.updated(),
+                "unchanged", result.unchanged(),
+                "skipped", result.skipped()
             ));
         } catch (Exception e) {
             return ResponseEntity.internalServerError().body(Map.of(
@@ -129,6 +168,71 @@ public class AdminController {
         }
     }
 
+    @Operation(
+        summary = "Start syncing product rules for many products",
+        description = """
+            Start a background job syncing the rules of many products into the local Category repository,
+            and return immediately with the job's status. Poll `GET /api/admin/sync-jobs/{jobId}` for progress.
+            
+            **Behaviour:**
+            - Products are synced in parallel on a bounded worker pool (`fd.sync.parallelism`)
+            - Products whose rule set hash is unchanged since their last sync are skipped (state UNCHANGED)
+            - A failing product does not stop the others
+            - Only one job runs at a time; while one is running, its status is returned instead of starting another
+            
+            Without `product_codes`, the configured catalog (`fd.sync.product-codes`) is synced.
+            
+            **⚠️ Admin Only:** This endpoint should be restricted to admin users in production
+            """
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "202",
+            description = "Job started (or already running)",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = RuleSyncJobStatus.class))
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "No product codes to sync",
+            content = @Content(mediaType = "application/json")
+        )
+    })
+    @PostMapping("/sync-product-rules")
+    public ResponseEntity<RuleSyncJobStatus> syncAllProductRules(
+        @RequestParam(name = "product_codes", required = false)
+        @Parameter(description = "Comma-separated product codes (default: configured catalog)", example = "FD001,FD002")
+        List<String> productCodes
+    ) {
+        return ResponseEntity.accepted().body(ruleSyncJobService.start(productCodes));
+    }
+
+    @Operation(
+        summary = "Get the progress of a product rule sync job",
+        description = """
+            Status of a job started by `POST /api/admin/sync-product-rules`: overall state
+            (RUNNING, COMPLETED, COMPLETED_WITH_ERRORS), counts, and per-product state with sync counts or error.
+            The last 20 jobs are kept.
+            """
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Job status",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = RuleSyncJobStatus.class))
+        ),
+        @ApiResponse(responseCode = "404", description = "Unknown or expired job")
+    })
+    @GetMapping("/sync-jobs/{jobId}")
+    public ResponseEntity<RuleSyncJobStatus> getSyncJobStatus(
+        @PathVariable
+        @Parameter(description = "Job identifier", example = "1")
+        long jobId
+    ) {
+        return ruleSyncJobService.status(jobId)
+            .map(ResponseEntity::ok)
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
     @Operation(
         summary = "Get all categories from database",
         description = """
@@ -210,4 +314,226 @@ public class AdminController {
     public ResponseEntity<List<CategoryDTO>> getAllCategories() {
         return ResponseEntity.ok(productRuleSyncService.getAllCategories());
     }
+
+    @Operation(
+        summary = "Refresh pricing snapshot for a product",
+        description = """
+            Rebuild the in-memory pricing snapshot (product details, interest rate slabs and rules) for a product
+            from the Product & Pricing API and swap it in atomically. Cached API responses for the product
+            are discarded first, so the rebuild sees the latest data.
+            
+            **When to Use:**
+            - Immediately after rates or rules change in the Product & Pricing API
+            - Snapshots are otherwise refreshed periodically (`pricing.snapshot.refresh-interval-ms`)
+            
+            If the rebuild fails, calculations keep using the previous snapshot.
+            
+            **⚠️ Admin Only:** This endpoint should be restricted to admin users in production
+            """
+    )
+    @PostMapping("/pricing-snapshot/refresh/{productCode}")
+    public ResponseEntity<Map<String, Object>> refreshPricingSnapshot(
+        @PathVariable 
+        @Parameter(description = "Product code", example = "FD001") 
+        String productCode
+    ) {
+        cachingPricingApiClient.invalidateProduct(productCode);
+        ProductPricingSnapshot snapshot = pricingSnapshotService.refresh(productCode);
+        return ResponseEntity.ok(Map.of(
+            "product_code", snapshot.productCode(),
+            "version", snapshot.version(),
+            "complete", snapshot.complete(),
+            "rate_slabs", snapshot.ratesByCode().size(),
+            "rules", snapshot.rulesByCode().size(),
+            "loaded_at", snapshot.loadedAt().toString()
+        ));
+    }
+
+    @Operation(
+        summary = "Reload the category alias index",
+        description = """
+            Re-read the category alias table (`fd.categories.alias-file`) and swap in a rebuilt index,
+            without a restart. The index maps category names used in calculation requests
+            (e.g. SENIOR, SENIOR_CITIZEN) to rule code prefixes (SR), and rule codes back to their
+            category type by longest matching prefix (MAXINT001 is MAXINT, not MAX).
+            
+            Rule code prefixes learned from synced product rules are kept.
+            
+            **⚠️ Admin Only:** This endpoint should be restricted to admin users in production
+            """
+    )
+    @PostMapping("/category-index/reload")
+    public ResponseEntity<Map<String, Object>> reloadCategoryIndex() {
+        CategoryAliasIndex index = categoryIndexService.reload();
+        return ResponseEntity.ok(Map.of(
+            "types", index.typeCount(),
+            "aliases", index.aliasCount()
+        ));
+    }
+
+    @Operation(
+        summary = "Get compound factor table statistics",
+        description = """
+            Hit/miss statistics of the in-memory compound factor table used by maturity, APY and payout calculations.
+            
+            **Fields:**
+            - **capacity**: Number of slots (`fd.math.factor-table.entries`, rounded down to a power of two)
+            - **hits / misses**: Lookups served from the table vs. computed
+            - **evictions**: Entries replaced by a colliding key
+            - **hitRate**: hits / (hits + misses)
+            """
+    )
+    @GetMapping("/factor-table/stats")
+    public ResponseEntity<CompoundFactorTable.Stats> getFactorTableStats() {
+        return ResponseEntity.ok(compoundFactorTable.stats());
+    }
+
+    @Operation(
+        summary = "Get pricing API cache statistics",
+        description = """
+            Statistics of the Product & Pricing API response caches (product details, interest rates, rules).
+            
+            **Fields per cache:**
+            - **size**: Entries currently cached
+            - **hits / misses / hit_rate**: Lookups served from the cache vs. sent to the API
+            - **evictions / evicted_weight**: Entries removed to stay within `pricing.cache.max-weight`
+            - **load_failures**: API calls that failed (including background refreshes)
+            - **average_load_millis**: Average API latency on a miss
+            """
+    )
+    @GetMapping("/pricing-cache/stats")
+    public ResponseEntity<Map<String, Map<String, Object>>> getPricingCacheStats() {
+        return ResponseEntity.ok(cachingPricingApiClient.stats());
+    }
+
+    @Operation(
+        summary = "Get pricing API circuit breaker and bulkhead statistics",
+        description = """
+            State of the resilience layer between the calculator and the Product & Pricing API.
+            
+            **Fields per endpoint circuit breaker:**
+            - **state**: CLOSED (calls go through), OPEN (calls rejected without calling the API) or HALF_OPEN (trial calls)
+            - **failure_rate / slow_call_rate**: Percentage over the sliding window (-1 until `pricing.resilience.minimum-calls` calls were made)
+            - **successful_calls / failed_calls / slow_calls**: Calls in the sliding window
+            - **rejected_calls**: Calls rejected while the breaker was open
+            
+            **bulkhead:** API calls currently running and queued, and the thread limit
+            """
+    )
+    @GetMapping("/pricing-resilience/stats")
+    public ResponseEntity<Map<String, Map<String, Object>>> getPricingResilienceStats() {
+        return ResponseEntity.ok(resilientPricingApiClient.stats());
+    }
+
+    @Operation(
+        summary = "Get write-behind calculation audit statistics",
+        description = """
+            State of the background writer persisting quotes when `fd.audit.write-behind.enabled` is true.
+            
+            **Fields:**
+            - **queued / queue_capacity**: Records waiting to be written and the queue bound
+            - **submitted / written / failed**: Records handed to the writer, stored, and given up on after retries
+            - **synchronous_writes**: Records written on the request thread because the queue stayed full (backpressure)
+            - **batches / average_batch_rows / average_batch_millis**: JDBC batch inserts done by the writer
+            """
+    )
+    @GetMapping("/audit-writer/stats")
+    public ResponseEntity<Map<String, Object>> getAuditWriterStats() {
+        return ResponseEntity.ok(calculationAuditService.stats());
+    }
+
+    @Operation(
+        summary = "Get database connection pool statistics",
+        description = """
+            Usage of the JDBC connection pool since startup. Rising waits while the CPUs are not busy mean
+            the pool, not compute, limits quote throughput.
+            
+            **Fields:**
+            - **active_connections / idle_connections / total_connections / max_connections**: Current pool state
+            - **threads_waiting**: Threads currently waiting for a connection
+            - **acquisitions / waited_acquisitions**: Connections handed out, and how many took over 1 ms to get
+            - **average_wait_millis / max_wait_millis**: Time spent waiting for a connection
+            - **timeouts**: Requests that gave up waiting (`connection-timeout`)
+            - **average_usage_millis / max_usage_millis**: How long a connection was held before being returned
+            """
+    )
+    @GetMapping("/connection-pool/stats")
+    public ResponseEntity<Map<String, Object>> getConnectionPoolStats() {
+        return ResponseEntity.ok(connectionPoolMetrics.stats());
+    }
+
+    @Operation(
+        summary = "Get calculation partitions and retention state",
+        description = """
+            Monthly calculation partitions (`fd.storage.partitioned`) and the retention settings.
+            
+            **Fields:**
+            - **partitions**: One entry per monthly table (fd_calculation_record_yyyymm) with its row count
+            - **keep_months / oldest_kept_month**: Partitions before oldest_kept_month are archived by the next run
+            - **archive_dir**: Where archived partitions are written as gzip NDJSON
+            - **archiving**: Partitions renamed for archiving (fd_calculation_record_yyyymm_archiving) that are not
+              dropped yet, e.g. after a failed run; the next run archives them
+            - **enabled**: Whether the nightly run (`fd.retention.cron`) archives partitions
+            - **last_run**: Result of the last run, or null
+            """
+    )
+    @GetMapping("/retention/stats")
+    public ResponseEntity<Map<String, Object>> getRetentionStats() {
+        return ResponseEntity.ok(calculationRetentionService.stats());
+    }
+
+    @Operation(
+        summary = "Archive expired calculation partitions now",
+        description = """
+            Run retention immediately, whether or not the nightly run is enabled.
+            
+            **Per expired partition:**
+            - The table is renamed to fd_calculation_record_yyyymm_archiving, so no quote is written to it any more;
+              a quote for that month arriving later starts a new partition, archived by a later run
+            - Every row is written to `<archive_dir>/fd_calculation_record_yyyymm.ndjson.gz`, one JSON object per line
+              in the format of /api/fd/history/export
+            - The table is then dropped; its quotes are no longer returned by the calculation and history endpoints
+            - If fewer rows were written than the table holds, the table is kept and listed under `skipped`
+            """
+    )
+    @PostMapping("/retention/run")
+    public ResponseEntity<Map<String, Object>> runRetention() {
+        return ResponseEntity.ok(calculationRetentionService.run());
+    }
+
+    @Operation(
+        summary = "Get quote deduplication statistics",
+        description = """
+            How often repeated quote requests were answered with an earlier quote (`fd.dedupe.enabled`).
+            
+            **Fields:**
+            - **size / max_entries**: Quote keys held in this node's in-memory index and its bound
+            - **hits / misses / hit_rate**: Requests answered from the index vs. priced and stored
+            - **stored_hits**: Requests whose insert was rejected because the same quote had just been stored
+              (by a concurrent request or another node), answered with that quote
+            - **evictions**: Keys dropped to stay within max_entries before their window ended
+            """
+    )
+    @GetMapping("/quote-dedupe/stats")
+    public ResponseEntity<Map<String, Object>> getQuoteDedupeStats() {
+        return ResponseEntity.ok(quoteDedupeService.stats());
+    }
+
+    @Operation(
+        summary = "Get calculation result cache statistics",
+        description = """
+            In-memory cache of stored quotes by calc id, used by GET /api/fd/calculations/{calcId} (`fd.result-cache.*`).
+            Quotes are cached when they are written, so reads of recent quotes do not query the database.
+            
+            **Fields:**
+            - **size**: Quotes held on this node
+            - **estimated_bytes / max_bytes**: Estimated heap taken by the cached quotes and the budget they are evicted to
+            - **hits / misses / hit_rate**: Lookups answered from the cache vs. read from the database
+            - **evictions / evicted_bytes**: Quotes dropped to stay within max_bytes
+            """
+    )
+    @GetMapping("/result-cache/stats")
+    public ResponseEntity<Map<String, Object>> getResultCacheStats() {
+        return ResponseEntity.ok(calculationResultCacheService.stats());
+    }
 }
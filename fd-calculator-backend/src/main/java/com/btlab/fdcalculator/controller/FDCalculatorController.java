@@ -1,8 +1,13 @@
 package com.btlab.fdcalculator.controller;
 
+import com.btlab.fdcalculator.model.dto.CalculationExportRow;
+import com.btlab.fdcalculator.model.dto.CalculationHistoryPage;
+import com.btlab.fdcalculator.model.dto.FDBatchCalculationResponse;
 import com.btlab.fdcalculator.model.dto.FDCalculationRequest;
 import com.btlab.fdcalculator.model.dto.FDCalculationResponse;
-import com.btlab.fdcalculator.repository.FDCalculationInputRepository;
+import com.btlab.fdcalculator.model.dto.FDMaturitySeriesRequest;
+import com.btlab.fdcalculator.model.dto.FDMaturitySeriesResponse;
+import com.btlab.fdcalculator.model.dto.PayoutScheduleEvent;
 import com.btlab.fdcalculator.service.FDCalculatorService;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -13,9 +18,27 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -29,7 +52,11 @@ import java.util.List;
 public class FDCalculatorController {
 
     private final FDCalculatorService fdCalculatorService;
-    private final FDCalculationInputRepository inputRepo;
+    private final ObjectMapper objectMapper;
+
+    private static final String CSV_HEADER = "calc_id,request_timestamp,product_code,category1_id,category2_id,"
+        + "currency_code,principal_amount,tenure_value,tenure_unit,interest_type,compounding_frequency,"
+        + "maturity_value,maturity_date,apy,effective_rate,payout_freq,payout_amount";
 
     @Operation(
         summary = "Calculate Fixed Deposit returns",
@@ -59,6 +86,10 @@ public class FDCalculatorController {
             - Effective rate = Base rate + Category benefits
             - APY calculated based on compounding frequency
             
+            **Repeated Requests:**
+            - With `fd.dedupe.enabled`, an identical request within the dedupe window (and priced with the
+              same rates) returns the earlier quote, with the same calc_id, instead of saving a new one
+            
             **Example Scenarios:**
             
             **Senior Citizen - Cumulative:**
@@ -196,8 +227,21 @@ public class FDCalculatorController {
         ),
         @ApiResponse(
             responseCode = "500",
-            description = "Server error (e.g., Product & Pricing API unavailable)",
+            description = "Server error",
             content = @Content(mediaType = "application/json")
+        ),
+        @ApiResponse(
+            responseCode = "503",
+            description = "Product & Pricing API unavailable (circuit open, too many calls in flight or timed out); retry later",
+            content = @Content(
+                mediaType = "application/json",
+                examples = @ExampleObject(
+                    name = "Pricing unavailable",
+                    value = """
+                        {"error": "pricing_unavailable", "message": "Pricing API circuit product-details is open"}
+                        """
+                )
+            )
         )
     })
     @PostMapping("/calculate")
@@ -205,6 +249,257 @@ public class FDCalculatorController {
         return fdCalculatorService.calculate(request);
     }
 
+    @Operation(
+        summary = "Calculate many Fixed Deposits in one call",
+        description = """
+            Calculate and save a batch of FD quotes, e.g. when re-quoting a whole customer book.
+            
+            **How it works:**
+            - Requests are grouped by product_code; pricing and rules are resolved once per product
+            - The calculations run in parallel across available cores
+            - All calculation inputs and results are saved with JDBC batch inserts
+            
+            **Partial failures:**
+            - Requests that fail validation (e.g. amount outside product limits) are reported in `errors`
+              with their index in the request list and do not fail the rest of the batch
+            - `results` contains the successful quotes in request order
+            
+            **Limits:** At most `fd.batch.max-size` requests per call (default 10000)
+            """,
+        requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(
+            description = "List of FD calculation requests",
+            required = true,
+            content = @Content(
+                mediaType = "application/json",
+                examples = @ExampleObject(
+                    name = "Two deposits",
+                    value = """
+                        [
+                          {
+                            "principal_amount": 100000,
+                            "tenure_value": 5,
+                            "tenure_unit": "YEARS",
+                            "category1_id": "SENIOR",
+                            "cumulative": true,
+                            "product_code": "FD001"
+                          },
+                          {
+                            "principal_amount": 50000,
+                            "tenure_value": 3,
+                            "tenure_unit": "YEARS",
+                            "cumulative": false,
+                            "payout_freq": "YEARLY",
+                            "product_code": "FD001"
+                          }
+                        ]
+                        """
+                )
+            )
+        )
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Batch processed (check `errors` for rejected items)",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = FDBatchCalculationResponse.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Batch exceeds the maximum size",
+            content = @Content(mediaType = "application/json")
+        ),
+        @ApiResponse(
+            responseCode = "503",
+            description = "Product & Pricing API unavailable and no product of the batch could be priced; retry later. Items of products whose pricing alone is unavailable are reported under `errors`",
+            content = @Content(
+                mediaType = "application/json",
+                examples = @ExampleObject(
+                    name = "Pricing unavailable",
+                    value = """
+                        {"error": "pricing_unavailable", "message": "Pricing API circuit product-details is open"}
+                        """
+                )
+            )
+        )
+    })
+    @PostMapping("/calculate/batch")
+    public FDBatchCalculationResponse calculateBatch(@RequestBody List<FDCalculationRequest> requests) {
+        return fdCalculatorService.calculateBatch(requests);
+    }
+
+    @Operation(
+        summary = "Stream the payout schedule of a non-cumulative FD",
+        description = """
+            Stream every dated cash-flow event of a non-cumulative FD over its tenure as
+            newline-delimited JSON (`application/x-ndjson`), one event per line.
+            
+            **Events:**
+            - `COMPOUNDING`: interest credited to the accrued balance (per compounding_frequency)
+            - `PAYOUT`: accrued interest paid out (per payout_freq); equals the `payout_amount` of a quote
+            - `MATURITY`: principal returned, plus interest accrued since the last payout if the
+              tenure does not end on a payout date
+            
+            **Notes:**
+            - Uses the same request, pricing and validation as /api/fd/calculate; nothing is saved
+            - Events are generated while the response is written, so long schedules
+              (e.g. 10 years with daily compounding) are never held in memory
+            - Only available for `cumulative=false`
+            """,
+        requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(
+            description = "FD calculation parameters (cumulative must be false)",
+            required = true,
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = FDCalculationRequest.class),
+                examples = @ExampleObject(
+                    name = "Quarterly payout, daily compounding",
+                    value = """
+                        {
+                          "principal_amount": 500000,
+                          "tenure_value": 10,
+                          "tenure_unit": "YEARS",
+                          "currency_code": "INR",
+                          "compounding_frequency": "DAILY",
+                          "cumulative": false,
+                          "payout_freq": "QUARTERLY",
+                          "product_code": "FD001"
+                        }
+                        """
+                )
+            )
+        )
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Schedule events, one JSON object per line",
+            content = @Content(
+                mediaType = "application/x-ndjson",
+                schema = @Schema(implementation = PayoutScheduleEvent.class),
+                examples = @ExampleObject(
+                    name = "Schedule lines",
+                    value = """
+                        {"sequence":1,"date":"2026-01-18","event_type":"COMPOUNDING","interest_credited":98.63,"accrued_interest":98.63,"payout_amount":null,"principal_returned":null}
+                        {"sequence":2,"date":"2026-01-19","event_type":"COMPOUNDING","interest_credited":98.65,"accrued_interest":197.28,"payout_amount":null,"principal_returned":null}
+                        """
+                )
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Invalid request parameters or cumulative FD",
+            content = @Content(mediaType = "application/json")
+        ),
+        @ApiResponse(
+            responseCode = "503",
+            description = "Product & Pricing API unavailable; retry later",
+            content = @Content(
+                mediaType = "application/json",
+                examples = @ExampleObject(
+                    name = "Pricing unavailable",
+                    value = """
+                        {"error": "pricing_unavailable", "message": "Pricing API circuit product-details is open"}
+                        """
+                )
+            )
+        )
+    })
+    @PostMapping(value = "/calculate/schedule", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> payoutSchedule(@RequestBody FDCalculationRequest request) {
+        // Price and validate before the response starts so errors still map to a 400
+        Iterator<PayoutScheduleEvent> events = fdCalculatorService.payoutSchedule(request);
+        ObjectWriter writer = objectMapper.writerFor(PayoutScheduleEvent.class)
+            .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        StreamingResponseBody body = out -> {
+            while (events.hasNext()) {
+                writer.writeValue(out, events.next());
+                out.write('\n');
+            }
+            out.flush();
+        };
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType("application/x-ndjson"))
+            .body(body);
+    }
+
+    @Operation(
+        summary = "Maturity curve for a range of tenures",
+        description = """
+            Return the cumulative FD maturity value for every tenure from `min_tenure_months` to
+            `max_tenure_months` (default 1 to 120) in one response, e.g. to plot maturity against tenure.
+            
+            **Series:**
+            - The first series uses the base rate (`category_id` = null)
+            - One more series per entry in `categories`, with that category's benefit applied
+              (capped at the product's maximum excess interest)
+            
+            **Rate slabs:**
+            - The base rate follows the tenure slabs (up to 12, 24, 36 and above 36 months), so the curve
+              steps where the slab changes; each point reports the `rate_code` it was priced with
+            
+            **Notes:**
+            - Equivalent to calling /api/fd/calculate with cumulative=true for each tenure in months,
+              but nothing is saved
+            - At most `fd.series.max-tenure-months` months (default 360)
+            """,
+        requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(
+            description = "Curve parameters",
+            required = true,
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = FDMaturitySeriesRequest.class),
+                examples = @ExampleObject(
+                    name = "Ten-year curve with two categories",
+                    value = """
+                        {
+                          "principal_amount": 100000,
+                          "min_tenure_months": 1,
+                          "max_tenure_months": 120,
+                          "currency_code": "INR",
+                          "categories": ["SENIOR", "GOLD"],
+                          "product_code": "FD001"
+                        }
+                        """
+                )
+            )
+        )
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Maturity curves",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = FDMaturitySeriesResponse.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Invalid tenure range or amount outside product limits",
+            content = @Content(mediaType = "application/json")
+        ),
+        @ApiResponse(
+            responseCode = "503",
+            description = "Product & Pricing API unavailable; retry later",
+            content = @Content(
+                mediaType = "application/json",
+                examples = @ExampleObject(
+                    name = "Pricing unavailable",
+                    value = """
+                        {"error": "pricing_unavailable", "message": "Pricing API circuit product-details is open"}
+                        """
+                )
+            )
+        )
+    })
+    @PostMapping("/calculate/series")
+    public FDMaturitySeriesResponse maturitySeries(@RequestBody FDMaturitySeriesRequest request) {
+        return fdCalculatorService.maturitySeries(request);
+    }
+
     @Operation(
         summary = "Get calculation by ID",
         description = """
@@ -219,6 +514,9 @@ public class FDCalculatorController {
             - All calculation inputs (principal, tenure, categories)
             - Calculated results (maturity value, APY, effective rate)
             - Payout details for non-cumulative FDs
+            
+            Stored calculations never change, so they are served from an in-memory cache once written
+            or first read (see /api/admin/result-cache/stats).
             """,
         parameters = {
             @Parameter(
@@ -256,34 +554,188 @@ public class FDCalculatorController {
     @Operation(
         summary = "Get calculation history",
         description = """
-            Get a list of all calculation IDs in the system.
+            Page through saved calculations, newest first, optionally filtered by product, request time and category.
             
-            **Use Case:**
-            - View all past calculations
-            - Audit trail for FD calculations
-            - Customer calculation history
+            **Paging:**
+            - Each response holds at most `limit` calculations and a `next_cursor`
+            - Pass `next_cursor` as `cursor` (with the same filters) to get the next page; it is null on the last page
+            - Pages continue after the last calculation seen rather than skipping an offset, so every page costs the
+              same however deep it is, and calculations saved meanwhile do not shift later pages
             
-            **Returns:**
-            List of calculation IDs that can be used with the /calculations/{calcId} endpoint to retrieve full details.
+            **Filters (all optional):**
+            - **product_code**: Only this product
+            - **from / to**: Requested at or after `from` and before `to` (ISO date-time, e.g. 2025-10-01T00:00:00)
+            - **category**: Quotes with this category code as category1 or category2, as given in the request (e.g. SENIOR)
             
-            **Note:** This endpoint returns only the IDs. Use the individual get endpoint to retrieve full calculation details.
-            """,
-        responses = {
-            @ApiResponse(
-                responseCode = "200",
-                description = "List of calculation IDs",
-                content = @Content(
-                    mediaType = "application/json",
-                    examples = @ExampleObject(
-                        name = "Calculation IDs",
-                        value = "[101, 102, 103, 104, 105]"
-                    )
-                )
-            )
-        }
+            Use the calc_id with the /calculations/{calcId} endpoint to retrieve full details.
+            """
     )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "A page of calculations",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = CalculationHistoryPage.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Invalid cursor, time range or limit",
+            content = @Content(mediaType = "application/json")
+        )
+    })
     @GetMapping("/history")
-    public List<Long> history() {
-        return inputRepo.findAll().stream().map(i -> i.getCalcId()).toList();
+    public CalculationHistoryPage history(
+        @RequestParam(name = "product_code", required = false)
+        @Parameter(description = "Product code", example = "FD001")
+        String productCode,
+        @RequestParam(required = false)
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+        @Parameter(description = "Requested at or after (inclusive)", example = "2025-10-01T00:00:00")
+        LocalDateTime from,
+        @RequestParam(required = false)
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+        @Parameter(description = "Requested before (exclusive)", example = "2025-11-01T00:00:00")
+        LocalDateTime to,
+        @RequestParam(required = false)
+        @Parameter(description = "Category code in either category slot", example = "SENIOR")
+        String category,
+        @RequestParam(required = false)
+        @Parameter(description = "next_cursor of the previous page")
+        String cursor,
+        @RequestParam(required = false)
+        @Parameter(description = "Page size (default 50, at most fd.history.max-page-size)", example = "50")
+        Integer limit
+    ) {
+        return fdCalculatorService.history(productCode, from, to, category, cursor, limit);
+    }
+
+    @Operation(
+        summary = "Export calculation history",
+        description = """
+            Stream every saved calculation matching the filters, with its inputs and results, for audits.
+            
+            **Formats:**
+            - **ndjson** (default): one JSON object per line (`application/x-ndjson`)
+            - **csv**: a header row, then one row per calculation (`text/csv`); text cells starting with `=`, `+`, `-` or `@`
+              are prefixed with `'` so spreadsheets do not evaluate them
+            
+            **Filters (all optional):** the same as /api/fd/history (product_code, from, to, category)
+            
+            **Notes:**
+            - Rows are written as they are read from the database, so exports of any size use the same memory
+            - Ordered by request time, oldest first, within each storage layout (input/result tables, then
+              single-row, then monthly partitions)
+            - Invalid filters are rejected with 400 before any row is written
+            """
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Calculations, one per line",
+            content = {
+                @Content(mediaType = "application/x-ndjson", schema = @Schema(implementation = CalculationExportRow.class)),
+                @Content(mediaType = "text/csv")
+            }
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Invalid format or time range",
+            content = @Content(mediaType = "application/json")
+        )
+    })
+    @GetMapping("/history/export")
+    public ResponseEntity<StreamingResponseBody> exportHistory(
+        @RequestParam(defaultValue = "ndjson")
+        @Parameter(description = "ndjson or csv", example = "csv")
+        String format,
+        @RequestParam(name = "product_code", required = false)
+        @Parameter(description = "Product code", example = "FD001")
+        String productCode,
+        @RequestParam(required = false)
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+        @Parameter(description = "Requested at or after (inclusive)", example = "2025-10-01T00:00:00")
+        LocalDateTime from,
+        @RequestParam(required = false)
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+        @Parameter(description = "Requested before (exclusive)", example = "2025-11-01T00:00:00")
+        LocalDateTime to,
+        @RequestParam(required = false)
+        @Parameter(description = "Category code in either category slot", example = "SENIOR")
+        String category
+    ) {
+        boolean csv = switch (format.toLowerCase()) {
+            case "csv" -> true;
+            case "ndjson" -> false;
+            default -> throw new IllegalArgumentException("format must be ndjson or csv");
+        };
+        // Validate before the response starts so errors still map to a 400
+        FDCalculatorService.HistoryExport export = fdCalculatorService.exportHistory(productCode, from, to, category);
+        StreamingResponseBody body = csv ? out -> writeCsv(export, out) : out -> writeNdjson(export, out);
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType(csv ? "text/csv" : "application/x-ndjson"))
+            .header(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"calculations." + (csv ? "csv" : "ndjson") + "\"")
+            .body(body);
+    }
+
+    private void writeNdjson(FDCalculatorService.HistoryExport export, OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(CalculationExportRow.class)
+            .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        export.writeTo(row -> {
+            try {
+                writer.writeValue(out, row);
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        out.flush();
+    }
+
+    private static void writeCsv(FDCalculatorService.HistoryExport export, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        export.writeTo(row -> {
+            try {
+                writer.write(csvLine(row));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        writer.flush();
+    }
+
+    private static String csvLine(CalculationExportRow row) {
+        Object[] values = {
+            row.calc_id(), row.request_timestamp(), row.product_code(), row.category1_id(), row.category2_id(),
+            row.currency_code(), row.principal_amount(), row.tenure_value(), row.tenure_unit(), row.interest_type(),
+            row.compounding_frequency(), row.maturity_value(), row.maturity_date(), row.apy(), row.effective_rate(),
+            row.payout_freq(), row.payout_amount()
+        };
+        StringBuilder line = new StringBuilder(160);
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            Object value = values[i];
+            if (value == null) {
+                continue;
+            }
+            String text = value instanceof BigDecimal amount ? amount.toPlainString() : value.toString();
+            if (value instanceof String && !text.isEmpty() && "=+-@\t\r".indexOf(text.charAt(0)) >= 0) {
+                // Text stored as sent (e.g. category ids) must not be run as a formula by spreadsheets;
+                // numbers are not String values, so negative amounts stay numbers
+                text = "'" + text;
+            }
+            if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+                line.append('"').append(text.replace("\"", "\"\"")).append('"');
+            } else {
+                line.append(text);
+            }
+        }
+        return line.append('\n').toString();
     }
 }
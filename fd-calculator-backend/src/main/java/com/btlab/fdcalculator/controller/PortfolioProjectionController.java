@@ -0,0 +1,92 @@
+package com.btlab.fdcalculator.controller;
+
+import com.btlab.fdcalculator.model.dto.PortfolioProjectionResponse;
+import com.btlab.fdcalculator.service.PortfolioProjectionService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+
+/**
+ * Controller for portfolio-level projections
+ * Aggregates future outflows of the whole deposit book for liquidity planning
+ */
+@RestController
+@RequestMapping("/api/portfolio")
+@RequiredArgsConstructor
+@Tag(name = "Portfolio Projection", description = "Treasury projections of maturity and interest outflows across all saved deposits")
+public class PortfolioProjectionController {
+
+    private final PortfolioProjectionService portfolioProjectionService;
+
+    @Operation(
+        summary = "Project maturity and interest outflows by date bucket",
+        description = """
+            Project how much principal and interest the deposit book pays out between two dates,
+            aggregated per day, week or calendar month.
+
+            **Outflows:**
+            - Principal of every deposit maturing in the bucket
+            - Cumulative deposits: accumulated interest paid at maturity
+            - Non-cumulative deposits: each periodic payout falling in the bucket, and at maturity the interest
+              of a trailing partial payout period
+
+            **Deposit book:**
+            - Built from all saved calculations (inputs and results) of the requested currency
+            - Repeated quotes (same terms, rate and dates, saved on the same day) count as one deposit
+            - Loaded into memory on first use; pass `reload_book=true` to pick up new deposits
+            - Computed in parallel across available cores; millions of deposits take seconds
+            """
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Projection computed",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = PortfolioProjectionResponse.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Invalid date range or bucket, or too many buckets",
+            content = @Content(mediaType = "application/json")
+        )
+    })
+    @GetMapping("/projection")
+    public PortfolioProjectionResponse project(
+        @RequestParam(name = "from_date", required = false)
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+        @Parameter(description = "First day of the projection (default today)", example = "2026-01-01")
+        LocalDate fromDate,
+
+        @RequestParam(name = "to_date", required = false)
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+        @Parameter(description = "Last day of the projection (default one year after from_date)", example = "2026-12-31")
+        LocalDate toDate,
+
+        @RequestParam(defaultValue = "MONTH")
+        @Parameter(description = "Bucket width: DAY, WEEK or MONTH", example = "MONTH")
+        String bucket,
+
+        @RequestParam(name = "currency_code", defaultValue = "INR")
+        @Parameter(description = "Currency of the deposits to project", example = "INR")
+        String currencyCode,
+
+        @RequestParam(name = "reload_book", defaultValue = "false")
+        @Parameter(description = "Reload the deposit book from the database before projecting", example = "false")
+        boolean reloadBook
+    ) {
+        LocalDate from = fromDate != null ? fromDate : LocalDate.now();
+        LocalDate to = toDate != null ? toDate : from.plusYears(1).minusDays(1);
+        return portfolioProjectionService.project(from, to, bucket, currencyCode, reloadBook);
+    }
+}
@@ -0,0 +1,16 @@
+package com.btlab.fdcalculator.exception;
+
+/**
+ * The Product & Pricing API was not called or did not answer in time: its circuit breaker
+ * is open, the call bulkhead is full, or the call timed out
+ */
+public class PricingUnavailableException extends RuntimeException {
+
+    public PricingUnavailableException(String message) {
+        super(message);
+    }
+
+    public PricingUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
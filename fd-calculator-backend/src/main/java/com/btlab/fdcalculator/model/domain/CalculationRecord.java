@@ -0,0 +1,36 @@
+package com.btlab.fdcalculator.model.domain;
+
+import lombok.Builder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One computed FD quote: the resolved calculation inputs together with the results.
+ * Maps onto an FDCalculationInput / FDCalculationResult pair; calcId and resultId are
+ * null until the record has been persisted. quoteKey is set for quotes stored with
+ * deduplication on, and null otherwise.
+ */
+@Builder(toBuilder = true)
+public record CalculationRecord(
+    Long calcId,
+    Long resultId,
+    String currencyCode,
+    BigDecimal principalAmount,
+    Integer tenureValue,
+    String tenureUnit,
+    String interestType,
+    String compoundingFrequency,
+    String category1Code,
+    String category2Code,
+    String productCode,
+    LocalDateTime requestTimestamp,
+    BigDecimal maturityValue,
+    LocalDate maturityDate,
+    BigDecimal apy,
+    BigDecimal effectiveRate,
+    String payoutFreq,
+    BigDecimal payoutAmount,
+    String quoteKey
+) {}
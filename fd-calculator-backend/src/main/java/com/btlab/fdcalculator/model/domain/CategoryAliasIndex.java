@@ -0,0 +1,77 @@
+package com.btlab.fdcalculator.model.domain;
+
+import com.btlab.fdcalculator.util.PrefixTrie;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable index between customer categories and product rule codes.
+ *
+ * A rule code is a category type prefix followed by the product suffix (SR001, MAXINT001).
+ * Category names given by callers (SENIOR, SENIOR_CITIZEN, SR) resolve to the type prefix
+ * through the alias table; rule codes resolve back to their type by longest matching prefix,
+ * so MAXINT001 is always MAXINT and never MAX. Both lookups are O(key length).
+ */
+public final class CategoryAliasIndex {
+
+    private final Map<String, String> prefixByAlias;
+    private final PrefixTrie<CategoryType> typesByPrefix = new PrefixTrie<>();
+
+    /**
+     * @param types   category types by rule code prefix
+     * @param aliases rule code prefix by category alias (upper case); every type prefix is
+     *                also an alias of itself
+     */
+    public CategoryAliasIndex(Map<String, CategoryType> types, Map<String, String> aliases) {
+        Map<String, String> prefixes = new HashMap<>(aliases);
+        types.forEach((prefix, type) -> {
+            typesByPrefix.put(prefix, type);
+            prefixes.putIfAbsent(prefix, prefix);
+        });
+        this.prefixByAlias = Map.copyOf(prefixes);
+    }
+
+    /**
+     * Rule code prefix for a category name or code; unknown categories are used as-is
+     */
+    public String ruleCodePrefix(String category) {
+        String key = category.toUpperCase();
+        return prefixByAlias.getOrDefault(key, key);
+    }
+
+    /**
+     * Category type of a rule code by longest matching prefix, or null if none matches
+     */
+    public CategoryType categoryType(String ruleCode) {
+        return typesByPrefix.longestPrefixOf(ruleCode.toUpperCase());
+    }
+
+    public int typeCount() {
+        return typesByPrefix.size();
+    }
+
+    public int aliasCount() {
+        return prefixByAlias.size();
+    }
+
+    /**
+     * A kind of product rule
+     *
+     * @param prefix  rule code prefix, e.g. "SR"
+     * @param name    display name, e.g. "Senior Citizen Benefit"
+     * @param benefit true for categories adding extra interest, false for constraints (MIN, MAX, MAXINT)
+     * @param bound   which end of the principal range a MIN_MAX amount rule of this type limits,
+     *                or null for other types
+     */
+    public record CategoryType(String prefix, String name, boolean benefit, Bound bound) {
+    }
+
+    /**
+     * Lower (MIN) or upper (MAX) limit
+     */
+    public enum Bound {
+        MIN,
+        MAX
+    }
+}
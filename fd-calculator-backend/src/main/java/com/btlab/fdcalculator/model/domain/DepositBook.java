@@ -0,0 +1,158 @@
+package com.btlab.fdcalculator.model.domain;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Column-oriented, read-only book of deposits for portfolio projections.
+ *
+ * Each attribute is a primitive array indexed by row, so ten million deposits take a few
+ * hundred MB instead of ten million entity graphs, and projection loops read them
+ * sequentially without pointer chasing. Amounts and rates use the fixed-point
+ * representations of CompoundInterestKernel; dates are epoch days.
+ */
+public final class DepositBook {
+
+    private final int size;
+    private final long[] principalE4;
+    private final int[] rateE4;
+    private final int[] startDay;
+    private final int[] maturityDay;
+    private final int[] tenureValue;
+    private final short[] tenureUnitsPerYear;
+    private final short[] compoundingPeriodsPerYear;
+    private final byte[] payoutPeriodsPerYear;
+    private final boolean[] simpleInterest;
+    private final byte[] currency;
+    private final List<String> currencies;
+    private final LocalDateTime loadedAt;
+
+    private DepositBook(Builder b) {
+        this.size = b.size;
+        this.principalE4 = b.principalE4;
+        this.rateE4 = b.rateE4;
+        this.startDay = b.startDay;
+        this.maturityDay = b.maturityDay;
+        this.tenureValue = b.tenureValue;
+        this.tenureUnitsPerYear = b.tenureUnitsPerYear;
+        this.compoundingPeriodsPerYear = b.compoundingPeriodsPerYear;
+        this.payoutPeriodsPerYear = b.payoutPeriodsPerYear;
+        this.simpleInterest = b.simpleInterest;
+        this.currency = b.currency;
+        this.currencies = List.copyOf(b.currencies);
+        this.loadedAt = LocalDateTime.now();
+    }
+
+    public int size() { return size; }
+    public long principalE4(int row) { return principalE4[row]; }
+    public int rateE4(int row) { return rateE4[row]; }
+    public int startDay(int row) { return startDay[row]; }
+    public int maturityDay(int row) { return maturityDay[row]; }
+    public int tenureValue(int row) { return tenureValue[row]; }
+    public int tenureUnitsPerYear(int row) { return tenureUnitsPerYear[row]; }
+    public int compoundingPeriodsPerYear(int row) { return compoundingPeriodsPerYear[row]; }
+
+    /**
+     * Payouts per year for non-cumulative deposits, 0 for cumulative deposits
+     */
+    public int payoutPeriodsPerYear(int row) { return payoutPeriodsPerYear[row]; }
+    public boolean simpleInterest(int row) { return simpleInterest[row]; }
+    public int currency(int row) { return currency[row]; }
+
+    /**
+     * Index of a currency code in the currency column, or -1 if the book has no such deposits
+     */
+    public int currencyIndex(String currencyCode) {
+        return currencies.indexOf(currencyCode);
+    }
+
+    public LocalDateTime loadedAt() { return loadedAt; }
+
+    public static Builder builder(int initialCapacity) {
+        return new Builder(Math.max(16, initialCapacity));
+    }
+
+    /**
+     * Appends rows into growable column arrays. Not thread-safe.
+     */
+    public static final class Builder {
+
+        private int size;
+        private long[] principalE4;
+        private int[] rateE4;
+        private int[] startDay;
+        private int[] maturityDay;
+        private int[] tenureValue;
+        private short[] tenureUnitsPerYear;
+        private short[] compoundingPeriodsPerYear;
+        private byte[] payoutPeriodsPerYear;
+        private boolean[] simpleInterest;
+        private byte[] currency;
+        private final List<String> currencies = new ArrayList<>();
+
+        private Builder(int capacity) {
+            principalE4 = new long[capacity];
+            rateE4 = new int[capacity];
+            startDay = new int[capacity];
+            maturityDay = new int[capacity];
+            tenureValue = new int[capacity];
+            tenureUnitsPerYear = new short[capacity];
+            compoundingPeriodsPerYear = new short[capacity];
+            payoutPeriodsPerYear = new byte[capacity];
+            simpleInterest = new boolean[capacity];
+            currency = new byte[capacity];
+        }
+
+        public Builder add(long principalE4, int rateE4, int startDay, int maturityDay,
+                           int tenureValue, int tenureUnitsPerYear, int compoundingPeriodsPerYear,
+                           int payoutPeriodsPerYear, boolean simpleInterest, String currencyCode) {
+            if (size == this.principalE4.length) {
+                grow();
+            }
+            int currencyIndex = currencies.indexOf(currencyCode);
+            if (currencyIndex < 0) {
+                if (currencies.size() == Byte.MAX_VALUE) {
+                    throw new IllegalStateException("Too many currencies in deposit book");
+                }
+                currencies.add(currencyCode);
+                currencyIndex = currencies.size() - 1;
+            }
+            this.principalE4[size] = principalE4;
+            this.rateE4[size] = rateE4;
+            this.startDay[size] = startDay;
+            this.maturityDay[size] = maturityDay;
+            this.tenureValue[size] = tenureValue;
+            this.tenureUnitsPerYear[size] = (short) tenureUnitsPerYear;
+            this.compoundingPeriodsPerYear[size] = (short) compoundingPeriodsPerYear;
+            this.payoutPeriodsPerYear[size] = (byte) payoutPeriodsPerYear;
+            this.simpleInterest[size] = simpleInterest;
+            this.currency[size] = (byte) currencyIndex;
+            size++;
+            return this;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public DepositBook build() {
+            return new DepositBook(this);
+        }
+
+        private void grow() {
+            int capacity = principalE4.length + (principalE4.length >> 1);
+            principalE4 = Arrays.copyOf(principalE4, capacity);
+            rateE4 = Arrays.copyOf(rateE4, capacity);
+            startDay = Arrays.copyOf(startDay, capacity);
+            maturityDay = Arrays.copyOf(maturityDay, capacity);
+            tenureValue = Arrays.copyOf(tenureValue, capacity);
+            tenureUnitsPerYear = Arrays.copyOf(tenureUnitsPerYear, capacity);
+            compoundingPeriodsPerYear = Arrays.copyOf(compoundingPeriodsPerYear, capacity);
+            payoutPeriodsPerYear = Arrays.copyOf(payoutPeriodsPerYear, capacity);
+            simpleInterest = Arrays.copyOf(simpleInterest, capacity);
+            currency = Arrays.copyOf(currency, capacity);
+        }
+    }
+}
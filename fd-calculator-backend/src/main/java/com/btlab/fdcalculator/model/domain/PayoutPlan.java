@@ -0,0 +1,57 @@
+package com.btlab.fdcalculator.model.domain;
+
+/**
+ * Compounding and payout frequencies of a non-cumulative deposit, resolved to periods per year.
+ * Shared by the payout amount calculation and the payout schedule so both agree on how many
+ * times interest compounds between two payouts.
+ */
+public record PayoutPlan(
+    String compoundingFrequency,
+    int compoundingPeriodsPerYear,
+    String payoutFrequency,
+    int payoutPeriodsPerYear,
+    int compoundsPerPayout
+) {
+
+    /**
+     * Resolve the plan for a payout frequency and an optional compounding frequency.
+     * A missing compounding frequency compounds at the payout frequency; unknown compounding
+     * frequencies default to QUARTERLY and unknown payout frequencies to YEARLY.
+     */
+    public static PayoutPlan of(String payoutFreq, String compoundingFreq) {
+        // If compounding frequency is null, use payout frequency
+        if (compoundingFreq == null) compoundingFreq = payoutFreq;
+
+        // Get compounding periods per year
+        int compoundingPeriodsPerYear = switch (compoundingFreq.toUpperCase()) {
+            case "DAILY" -> 365;
+            case "MONTHLY" -> 12;
+            case "QUARTERLY" -> 4;
+            case "YEARLY" -> 1;
+            default -> 4; // Default to quarterly
+        };
+
+        // Get payout periods per year
+        int payoutPeriodsPerYear = switch (payoutFreq.toUpperCase()) {
+            case "MONTHLY" -> 12;
+            case "QUARTERLY" -> 4;
+            case "YEARLY" -> 1;
+            default -> 1; // Default to yearly
+        };
+
+        // Number of compounding periods per payout period
+        // Example: If compounding is QUARTERLY (4/year) and payout is YEARLY (1/year)
+        //          then n = 4/1 = 4 (compounds 4 times per payout)
+        // When payout is more frequent than compounding, interest is credited once per payout
+        int n = Math.max(1, compoundingPeriodsPerYear / payoutPeriodsPerYear);
+
+        return new PayoutPlan(compoundingFreq, compoundingPeriodsPerYear, payoutFreq, payoutPeriodsPerYear, n);
+    }
+
+    /**
+     * True when interest is paid out more often than it compounds (e.g. compounding YEARLY, payout QUARTERLY)
+     */
+    public boolean payoutMoreFrequentThanCompounding() {
+        return compoundingPeriodsPerYear < payoutPeriodsPerYear;
+    }
+}
@@ -0,0 +1,55 @@
+package com.btlab.fdcalculator.model.domain;
+
+import com.btlab.fdcalculator.model.dto.ProductDetailsDTO;
+import com.btlab.fdcalculator.model.dto.ProductInterestDTO;
+import com.btlab.fdcalculator.model.dto.ProductRuleDTO;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Immutable, in-memory view of everything the calculator needs from the
+ * Product & Pricing API for one product: product details, interest rate slabs
+ * (keyed by rate code, e.g. "INT12M001") and product rules (keyed by rule code,
+ * e.g. "MIN001", "SR001").
+ *
+ * A snapshot is never modified after it is built; a refresh builds a new
+ * snapshot and swaps it in, so readers always see a consistent set of rates
+ * and rules.
+ *
+ * @param ruleSet  the rules compiled into parsed bounds and values, swapped in together
+ *                 with the rest of the snapshot
+ * @param complete false when rates or rules could not be fetched while building
+ *                 the snapshot, in which case it is rebuilt on next access
+ * @param version  monotonically increasing build number
+ */
+public record ProductPricingSnapshot(
+    String productCode,
+    ProductDetailsDTO productDetails,
+    Map<String, ProductInterestDTO> ratesByCode,
+    Map<String, ProductRuleDTO> rulesByCode,
+    ProductRuleSet ruleSet,
+    boolean complete,
+    long version,
+    LocalDateTime loadedAt
+) {
+
+    public ProductPricingSnapshot {
+        ratesByCode = Map.copyOf(ratesByCode);
+        rulesByCode = Map.copyOf(rulesByCode);
+    }
+
+    /**
+     * Get an interest rate slab by rate code, or null if the product has none
+     */
+    public ProductInterestDTO rate(String rateCode) {
+        return ratesByCode.get(rateCode);
+    }
+
+    /**
+     * Get a product rule by rule code, or null if the product has none
+     */
+    public ProductRuleDTO rule(String ruleCode) {
+        return rulesByCode.get(ruleCode);
+    }
+}
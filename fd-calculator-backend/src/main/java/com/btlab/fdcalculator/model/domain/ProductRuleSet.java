@@ -0,0 +1,146 @@
+package com.btlab.fdcalculator.model.domain;
+
+import com.btlab.fdcalculator.model.domain.CategoryAliasIndex.Bound;
+import com.btlab.fdcalculator.model.domain.CategoryAliasIndex.CategoryType;
+import com.btlab.fdcalculator.model.dto.ProductRuleDTO;
+import lombok.extern.slf4j.Slf4j;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A product's rules compiled from their metadata (validationType, dataType) into what a
+ * calculation evaluates, all parsed once when the pricing snapshot is built:
+ *
+ * - amount guard: MIN_MAX rules on a NUMBER, merged into one range check on the principal.
+ *   The metadata has no field for which end a rule limits, so it is the bound of the rule's
+ *   category type in the category alias table (MIN001 is type MIN, bound MIN); a rule whose
+ *   type has no bound is skipped with a warning and the default limit applies
+ * - rate adjusters: EXACT rules, a benefit in percent added when the request's category
+ *   matches the rule code; benefits of several categories stack
+ * - cap: MIN_MAX rules on a PERCENTAGE limit the stacked benefit
+ *
+ * Evaluation is one range check and one hash lookup per category, however many rules the
+ * product has, so new categories and limits only need new rules. Missing limits fall back to
+ * the defaults below; rules with an unknown validation type or a non-numeric value are
+ * skipped with a warning at compile time. Compiling never fails, so a bad rule cannot take the
+ * product's pricing down.
+ *
+ * @param minimumAmount         highest lower bound on the principal, or 0
+ * @param maximumAmount         lowest upper bound on the principal, or 999999999
+ * @param maximumExcessInterest lowest cap on stacked benefits (percent), or 2.00
+ * @param benefitsByRuleCode    EXACT rule benefits (percent) by rule code
+ */
+@Slf4j
+public record ProductRuleSet(
+    BigDecimal minimumAmount,
+    BigDecimal maximumAmount,
+    BigDecimal maximumExcessInterest,
+    Map<String, BigDecimal> benefitsByRuleCode
+) {
+
+    public static final BigDecimal DEFAULT_MINIMUM_AMOUNT = BigDecimal.ZERO;
+    public static final BigDecimal DEFAULT_MAXIMUM_AMOUNT = new BigDecimal("999999999");
+    public static final BigDecimal DEFAULT_MAXIMUM_EXCESS_INTEREST = new BigDecimal("2.00");
+
+    private static final String MIN_MAX = "MIN_MAX";
+    private static final String EXACT = "EXACT";
+    private static final String PERCENTAGE = "PERCENTAGE";
+
+    public ProductRuleSet {
+        benefitsByRuleCode = Map.copyOf(benefitsByRuleCode);
+    }
+
+    /**
+     * @param categories resolves the category type, and so the bound, of amount rules
+     */
+    public static ProductRuleSet compile(String productCode, Map<String, ProductRuleDTO> rulesByCode,
+                                         CategoryAliasIndex categories) {
+        BigDecimal minimum = null;
+        BigDecimal maximum = null;
+        BigDecimal cap = null;
+        Map<String, BigDecimal> benefits = new HashMap<>();
+
+        for (ProductRuleDTO rule : rulesByCode.values()) {
+            BigDecimal value;
+            try {
+                value = new BigDecimal(rule.ruleValue());
+            } catch (RuntimeException e) {
+                log.warn("Rule {} of product {} has non-numeric value '{}'. Ignoring it.",
+                    rule.ruleCode(), productCode, rule.ruleValue());
+                continue;
+            }
+            String validationType = rule.validationType() != null ? rule.validationType().toUpperCase() : "";
+            switch (validationType) {
+                case EXACT -> benefits.put(rule.ruleCode(), value);
+                case MIN_MAX -> {
+                    if (PERCENTAGE.equalsIgnoreCase(rule.dataType())) {
+                        cap = cap == null ? value : cap.min(value);
+                        continue;
+                    }
+                    CategoryType type = categories.categoryType(rule.ruleCode());
+                    Bound bound = type != null ? type.bound() : null;
+                    if (bound == Bound.MIN) {
+                        minimum = minimum == null ? value : minimum.max(value);
+                    } else if (bound == Bound.MAX) {
+                        maximum = maximum == null ? value : maximum.min(value);
+                    } else {
+                        log.warn("Rule {} of product {} limits the amount, but its category type has no bound "
+                            + "(MIN or MAX) in the category alias table. Ignoring it.", rule.ruleCode(), productCode);
+                    }
+                }
+                default -> log.warn("Rule {} of product {} has unsupported validation type '{}'. Ignoring it.",
+                    rule.ruleCode(), productCode, rule.validationType());
+            }
+        }
+
+        return new ProductRuleSet(
+            orDefault(productCode, "minimum amount", minimum, DEFAULT_MINIMUM_AMOUNT),
+            orDefault(productCode, "maximum amount", maximum, DEFAULT_MAXIMUM_AMOUNT),
+            orDefault(productCode, "maximum excess interest", cap, DEFAULT_MAXIMUM_EXCESS_INTEREST),
+            benefits);
+    }
+
+    /**
+     * Benefit of an EXACT rule, or null if the product has no such rule
+     */
+    public BigDecimal benefit(String ruleCode) {
+        return benefitsByRuleCode.get(ruleCode);
+    }
+
+    /**
+     * Stack the benefits of the given rule codes (unknown codes add nothing) and apply the cap
+     */
+    public Adjustment adjust(String... ruleCodes) {
+        BigDecimal stacked = BigDecimal.ZERO;
+        for (String ruleCode : ruleCodes) {
+            BigDecimal benefit = ruleCode != null ? benefitsByRuleCode.get(ruleCode) : null;
+            if (benefit != null) {
+                stacked = stacked.add(benefit);
+            }
+        }
+        return new Adjustment(stacked.min(maximumExcessInterest), stacked);
+    }
+
+    private static BigDecimal orDefault(String productCode, String limit, BigDecimal value, BigDecimal defaultValue) {
+        if (value == null) {
+            log.warn("No {} rule for product {}. Using default {}.", limit, productCode, defaultValue);
+            return defaultValue;
+        }
+        return value;
+    }
+
+    /**
+     * Extra interest from stacked benefits
+     *
+     * @param extra    stacked benefits after the cap (percent)
+     * @param uncapped stacked benefits before the cap (percent)
+     */
+    public record Adjustment(BigDecimal extra, BigDecimal uncapped) {
+
+        public boolean capped() {
+            return uncapped.compareTo(extra) > 0;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.btlab.fdcalculator.model.domain;
+
+import com.btlab.fdcalculator.util.EpochDays;
+
+import java.time.LocalDate;
+
+/**
+ * Date bucket width for portfolio projections. Buckets are counted from the projection start
+ * date: DAY and WEEK buckets are 1 and 7 days long, MONTH buckets follow calendar months
+ * (the first one starts on the projection start date).
+ */
+public enum ProjectionBucket {
+    DAY, WEEK, MONTH;
+
+    public static ProjectionBucket parse(String value) {
+        try {
+            return valueOf(value.toUpperCase());
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new IllegalArgumentException("Invalid bucket: " + value + ". Use DAY, WEEK or MONTH");
+        }
+    }
+
+    /**
+     * Index of the bucket containing epochDay, for a projection starting on fromDay
+     */
+    public int indexOf(int fromDay, int epochDay) {
+        return indexOf(fromDay, EpochDays.monthIndex(fromDay), epochDay);
+    }
+
+    /**
+     * Same as indexOf(fromDay, epochDay) with the month index of fromDay precomputed, for hot loops
+     */
+    public int indexOf(int fromDay, int fromMonthIndex, int epochDay) {
+        return switch (this) {
+            case DAY -> epochDay - fromDay;
+            case WEEK -> (epochDay - fromDay) / 7;
+            case MONTH -> EpochDays.monthIndex(epochDay) - fromMonthIndex;
+        };
+    }
+
+    /**
+     * First day of a bucket
+     */
+    public LocalDate start(LocalDate from, int index) {
+        return switch (this) {
+            case DAY -> from.plusDays(index);
+            case WEEK -> from.plusWeeks(index);
+            case MONTH -> index == 0 ? from : from.withDayOfMonth(1).plusMonths(index);
+        };
+    }
+}
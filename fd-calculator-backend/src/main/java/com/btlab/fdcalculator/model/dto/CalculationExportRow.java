@@ -0,0 +1,65 @@
+package com.btlab.fdcalculator.model.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One saved calculation (inputs and results) as written by the history export
+ */
+@Schema(description = "A saved FD calculation with its inputs and results, one per NDJSON line or CSV row")
+public record CalculationExportRow(
+
+    @Schema(description = "Calculation ID", example = "123", required = true)
+    Long calc_id,
+
+    @Schema(description = "When the calculation was requested", example = "2025-10-10T14:30:00", nullable = true)
+    LocalDateTime request_timestamp,
+
+    @Schema(description = "Product code used", example = "FD001")
+    String product_code,
+
+    @Schema(description = "Primary customer category code", example = "SENIOR", nullable = true)
+    String category1_id,
+
+    @Schema(description = "Secondary customer category code", example = "GOLD", nullable = true)
+    String category2_id,
+
+    @Schema(description = "Currency code", example = "INR")
+    String currency_code,
+
+    @Schema(description = "Principal amount", example = "100000.0000", required = true)
+    BigDecimal principal_amount,
+
+    @Schema(description = "Tenure value", example = "5", required = true)
+    Integer tenure_value,
+
+    @Schema(description = "Tenure unit", example = "YEARS", required = true)
+    String tenure_unit,
+
+    @Schema(description = "Interest type", example = "COMPOUND", required = true)
+    String interest_type,
+
+    @Schema(description = "Compounding frequency", example = "QUARTERLY", nullable = true)
+    String compounding_frequency,
+
+    @Schema(description = "Maturity value", example = "165871.5700", required = true)
+    BigDecimal maturity_value,
+
+    @Schema(description = "Maturity date", example = "2030-10-10", required = true)
+    LocalDate maturity_date,
+
+    @Schema(description = "Annual percentage yield", example = "7.7633", nullable = true)
+    BigDecimal apy,
+
+    @Schema(description = "Effective annual rate applied", example = "7.5000", nullable = true)
+    BigDecimal effective_rate,
+
+    @Schema(description = "Payout frequency (non-cumulative FDs)", example = "QUARTERLY", nullable = true)
+    String payout_freq,
+
+    @Schema(description = "Amount of each payout (non-cumulative FDs)", example = "1875.0000", nullable = true)
+    BigDecimal payout_amount
+) {}
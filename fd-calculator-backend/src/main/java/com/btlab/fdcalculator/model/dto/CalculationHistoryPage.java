@@ -0,0 +1,60 @@
+package com.btlab.fdcalculator.model.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * One page of saved calculations, newest first
+ * Pass next_cursor back as cursor to get the following page
+ */
+@Schema(description = "A page of saved FD calculations, newest first. Pass next_cursor as the cursor parameter to fetch the next page")
+public record CalculationHistoryPage(
+
+    @Schema(description = "Calculations on this page, newest first", required = true)
+    List<Item> items,
+
+    @Schema(description = "Cursor of the next page; null on the last page", example = "MjAyNi0xMC0xN1QwMzoxNjoxNS4wMjR8MTIz", nullable = true)
+    String next_cursor
+) {
+
+    @Schema(description = "Summary of a saved calculation; full details are available from /calculations/{calcId}")
+    public record Item(
+
+        @Schema(description = "Calculation ID", example = "123", required = true)
+        Long calc_id,
+
+        @Schema(description = "When the calculation was requested", example = "2025-10-10T14:30:00", required = true)
+        LocalDateTime request_timestamp,
+
+        @Schema(description = "Product code used", example = "FD001")
+        String product_code,
+
+        @Schema(description = "Primary customer category code", example = "SENIOR", nullable = true)
+        String category1_id,
+
+        @Schema(description = "Secondary customer category code", example = "GOLD", nullable = true)
+        String category2_id,
+
+        @Schema(description = "Currency code", example = "INR")
+        String currency_code,
+
+        @Schema(description = "Principal amount", example = "100000.0000", required = true)
+        BigDecimal principal_amount,
+
+        @Schema(description = "Tenure value", example = "5", required = true)
+        Integer tenure_value,
+
+        @Schema(description = "Tenure unit", example = "YEARS", required = true)
+        String tenure_unit,
+
+        @Schema(description = "Maturity value", example = "165871.5700", required = true)
+        BigDecimal maturity_value,
+
+        @Schema(description = "Maturity date", example = "2030-10-10", required = true)
+        LocalDate maturity_date
+    ) {}
+}
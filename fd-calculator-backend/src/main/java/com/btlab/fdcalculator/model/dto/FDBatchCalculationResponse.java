@@ -0,0 +1,39 @@
+package com.btlab.fdcalculator.model.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+/**
+ * Response DTO for batch FD calculations
+ * Successful quotes are returned in request order; failed items are reported by their request index
+ */
+@Schema(description = "Result of a batch FD calculation. Successful quotes are listed in request order, failed items are reported separately with their index in the request list")
+public record FDBatchCalculationResponse(
+
+    @Schema(description = "Number of requests received", example = "3", required = true)
+    int total,
+
+    @Schema(description = "Number of requests calculated and saved", example = "2", required = true)
+    int succeeded,
+
+    @Schema(description = "Number of requests rejected", example = "1", required = true)
+    int failed,
+
+    @Schema(description = "Calculation results for successful requests, in request order", required = true)
+    List<FDCalculationResponse> results,
+
+    @Schema(description = "Errors for rejected requests", required = true)
+    List<ItemError> errors
+) {
+
+    @Schema(description = "Error for a single request in a batch")
+    public record ItemError(
+
+        @Schema(description = "Zero-based index of the request in the batch", example = "2", required = true)
+        int index,
+
+        @Schema(description = "Reason the request was rejected", example = "Amount 5.00 is below minimum allowed amount 10000.00 for product FD001", required = true)
+        String error
+    ) {}
+}
@@ -0,0 +1,49 @@
+package com.btlab.fdcalculator.model.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Request DTO for a cumulative FD maturity curve
+ * One series is returned for the base rate and one for each requested category
+ */
+@Schema(description = "Parameters for a cumulative FD maturity curve: maturity value for every tenure in months from min_tenure_months to max_tenure_months, for the base rate and for each category")
+public record FDMaturitySeriesRequest(
+
+    @Schema(description = "Currency code for the deposit", example = "INR", allowableValues = {"INR", "JPY", "AED"}, defaultValue = "INR")
+    @Pattern(regexp = "INR|JPY|AED")
+    String currency_code,
+
+    @Schema(description = "Principal amount to be deposited", example = "100000", minimum = "0.01", required = true)
+    @NotNull
+    @DecimalMin("0.01")
+    BigDecimal principal_amount,
+
+    @Schema(description = "Shortest tenure on the curve, in months", example = "1", defaultValue = "1")
+    @Min(1)
+    Integer min_tenure_months,
+
+    @Schema(description = "Longest tenure on the curve, in months", example = "120", defaultValue = "120")
+    @Min(1)
+    Integer max_tenure_months,
+
+    @Schema(description = "Type of interest calculation. If not provided, will be fetched from Product & Pricing API", example = "COMPOUND", allowableValues = {"SIMPLE", "COMPOUND"})
+    @Pattern(regexp = "SIMPLE|COMPOUND")
+    String interest_type,
+
+    @Schema(description = "Frequency of compounding. If not provided, will be fetched from Product & Pricing API", example = "QUARTERLY", allowableValues = {"DAILY", "MONTHLY", "QUARTERLY", "YEARLY"})
+    @Pattern(regexp = "DAILY|MONTHLY|QUARTERLY|YEARLY")
+    String compounding_frequency,
+
+    @Schema(description = "Customer category codes; one additional series is returned per category", example = "[\"SENIOR\", \"GOLD\"]")
+    List<String> categories,
+
+    @Schema(description = "Product code", example = "FD001", defaultValue = "FD001")
+    String product_code
+) {}
@@ -0,0 +1,59 @@
+package com.btlab.fdcalculator.model.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Response DTO for a cumulative FD maturity curve
+ * Amounts are formatted with currency-specific decimals, rounded down
+ */
+@Schema(description = "Cumulative FD maturity curves. The first series uses the base rate, followed by one series per requested category")
+public record FDMaturitySeriesResponse(
+
+    @Schema(description = "Product code used for the curve", example = "FD001", required = true)
+    String product_code,
+
+    @Schema(description = "Currency code", example = "INR", required = true)
+    String currency_code,
+
+    @Schema(description = "Principal amount", example = "100000", required = true)
+    BigDecimal principal_amount,
+
+    @Schema(description = "Interest type used for the curve", example = "COMPOUND", required = true)
+    String interest_type,
+
+    @Schema(description = "Compounding frequency used for the curve", example = "QUARTERLY", nullable = true)
+    String compounding_frequency,
+
+    @Schema(description = "One series for the base rate, then one per category", required = true)
+    List<Series> series
+) {
+
+    @Schema(description = "Maturity curve for one category")
+    public record Series(
+
+        @Schema(description = "Category code. Null for the base-rate series", example = "SENIOR", nullable = true)
+        String category_id,
+
+        @Schema(description = "One point per tenure month, in ascending order", required = true)
+        List<Point> points
+    ) {}
+
+    @Schema(description = "Maturity value for one tenure")
+    public record Point(
+
+        @Schema(description = "Tenure in months", example = "12", required = true)
+        int tenure_months,
+
+        @Schema(description = "Interest rate slab used for this tenure", example = "INT12M001", required = true)
+        String rate_code,
+
+        @Schema(description = "Effective annual rate including category benefits. 4 decimals, rounded down", example = "8.2500", required = true)
+        BigDecimal effective_rate,
+
+        @Schema(description = "Maturity value for this tenure", example = "108509.83", required = true)
+        BigDecimal maturity_value
+    ) {}
+}
@@ -0,0 +1,35 @@
+package com.btlab.fdcalculator.model.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.math.BigDecimal;
+
+/**
+ * One dated cash-flow event in the payout schedule of a non-cumulative FD.
+ * Streamed as one NDJSON line per event, in date order.
+ * Amounts are formatted with currency-specific decimals, rounded down
+ */
+@Schema(description = "One dated event in a non-cumulative FD payout schedule. COMPOUNDING credits interest to the accrued balance, PAYOUT pays out the accrued interest, MATURITY returns the principal together with any interest accrued since the last payout")
+public record PayoutScheduleEvent(
+
+    @Schema(description = "Position of the event in the schedule, starting at 1", example = "1", required = true)
+    long sequence,
+
+    @Schema(description = "Event date in ISO format (YYYY-MM-DD)", example = "2026-01-17", required = true)
+    String date,
+
+    @Schema(description = "Event type", example = "COMPOUNDING", allowableValues = {"COMPOUNDING", "PAYOUT", "MATURITY"}, required = true)
+    String event_type,
+
+    @Schema(description = "Interest credited by this compounding event. Null for other events", example = "1281.25", nullable = true)
+    BigDecimal interest_credited,
+
+    @Schema(description = "Interest accrued and not yet paid out after this event", example = "1281.25", required = true)
+    BigDecimal accrued_interest,
+
+    @Schema(description = "Interest paid out by this event. Null for compounding events", example = "5325.38", nullable = true)
+    BigDecimal payout_amount,
+
+    @Schema(description = "Principal returned. Only set on the MATURITY event", example = "50000.00", nullable = true)
+    BigDecimal principal_returned
+) {}
@@ -0,0 +1,67 @@
+package com.btlab.fdcalculator.model.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Response DTO for a portfolio maturity projection
+ * Amounts are totals in one currency, formatted with currency-specific decimals, rounded down
+ */
+@Schema(description = "Projected maturity and interest outflows of the deposit book, aggregated by date bucket")
+public record PortfolioProjectionResponse(
+
+    @Schema(description = "Currency of the projected deposits", example = "INR", required = true)
+    String currency_code,
+
+    @Schema(description = "First day of the projection (inclusive)", example = "2026-01-01", required = true)
+    String from_date,
+
+    @Schema(description = "Last day of the projection (inclusive)", example = "2026-12-31", required = true)
+    String to_date,
+
+    @Schema(description = "Bucket width", example = "MONTH", allowableValues = {"DAY", "WEEK", "MONTH"}, required = true)
+    String bucket,
+
+    @Schema(description = "Number of deposits in the book (all currencies)", example = "10000000", required = true)
+    int book_size,
+
+    @Schema(description = "When the deposit book was loaded from the database", example = "2026-01-01T09:00:00", required = true)
+    String book_loaded_at,
+
+    @Schema(description = "Time spent computing the projection, in milliseconds", example = "850", required = true)
+    long compute_millis,
+
+    @Schema(description = "Principal returned over the whole projection", example = "125000000.00", required = true)
+    BigDecimal total_principal_maturing,
+
+    @Schema(description = "Interest paid over the whole projection", example = "9800000.00", required = true)
+    BigDecimal total_interest_outflow,
+
+    @Schema(description = "One entry per bucket, in date order", required = true)
+    List<Bucket> buckets
+) {
+
+    @Schema(description = "Outflows falling in one date bucket")
+    public record Bucket(
+
+        @Schema(description = "First day of the bucket", example = "2026-01-01", required = true)
+        String bucket_start,
+
+        @Schema(description = "Last day of the bucket", example = "2026-01-31", required = true)
+        String bucket_end,
+
+        @Schema(description = "Deposits maturing in the bucket", example = "812", required = true)
+        int maturing_deposits,
+
+        @Schema(description = "Principal returned at maturity", example = "10450000.00", required = true)
+        BigDecimal principal_maturing,
+
+        @Schema(description = "Interest paid: periodic payouts of non-cumulative deposits plus accumulated interest of cumulative deposits maturing in the bucket", example = "812000.50", required = true)
+        BigDecimal interest_outflow,
+
+        @Schema(description = "principal_maturing + interest_outflow", example = "11262000.50", required = true)
+        BigDecimal total_outflow
+    ) {}
+}
@@ -0,0 +1,59 @@
+package com.btlab.fdcalculator.model.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+/**
+ * Progress of an asynchronous multi-product rule sync job
+ */
+@Schema(description = "Progress of a job syncing the rules of many products into the category table")
+public record RuleSyncJobStatus(
+
+    @Schema(description = "Job identifier, used to poll its status", example = "3", required = true)
+    long job_id,
+
+    @Schema(description = "Job state", example = "RUNNING", allowableValues = {"RUNNING", "COMPLETED", "COMPLETED_WITH_ERRORS"}, required = true)
+    String state,
+
+    @Schema(description = "When the job was started", example = "2026-01-01T09:00:00", required = true)
+    String started_at,
+
+    @Schema(description = "When the last product finished, null while running", example = "2026-01-01T09:00:42")
+    String finished_at,
+
+    @Schema(description = "Number of products in the job", example = "250", required = true)
+    int total_products,
+
+    @Schema(description = "Products finished so far (synced, unchanged or failed)", example = "120", required = true)
+    int finished_products,
+
+    @Schema(description = "Products whose categories were compared and written", example = "15", required = true)
+    int synced,
+
+    @Schema(description = "Products skipped because their rule set hash had not changed", example = "100", required = true)
+    int unchanged,
+
+    @Schema(description = "Products whose sync failed", example = "5", required = true)
+    int failed,
+
+    @Schema(description = "Per-product progress, in the order the products were submitted", required = true)
+    List<ProductProgress> products
+) {
+
+    @Schema(description = "Sync progress of one product")
+    public record ProductProgress(
+
+        @Schema(description = "Product code", example = "FD001", required = true)
+        String product_code,
+
+        @Schema(description = "Product state", example = "SYNCED", allowableValues = {"PENDING", "RUNNING", "SYNCED", "UNCHANGED", "FAILED"}, required = true)
+        String state,
+
+        @Schema(description = "Sync counts, once the product has been synced")
+        RuleSyncResult result,
+
+        @Schema(description = "Failure message, if the sync failed", example = "Failed to sync product rules: Pricing API circuit rules is open")
+        String error
+    ) {}
+}
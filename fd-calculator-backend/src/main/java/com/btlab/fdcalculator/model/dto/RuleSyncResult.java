@@ -0,0 +1,34 @@
+package com.btlab.fdcalculator.model.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Outcome of syncing one product's rules into the category table
+ */
+@Schema(description = "Counts of category rows written by a product rule sync")
+public record RuleSyncResult(
+
+    @Schema(description = "Product whose rules were synced", example = "FD001")
+    String product_code,
+
+    @Schema(description = "Rules fetched from the Product & Pricing API", example = "10")
+    int rules_fetched,
+
+    @Schema(description = "Benefit categories created", example = "1")
+    int inserted,
+
+    @Schema(description = "Benefit categories whose percentage changed", example = "2")
+    int updated,
+
+    @Schema(description = "Benefit categories already up to date", example = "4")
+    int unchanged,
+
+    @Schema(description = "Rules skipped: constraints, unknown prefixes or non-numeric values", example = "3")
+    int skipped,
+
+    @Schema(description = "SHA-256 of the fetched rule set", example = "9f2c...")
+    String rules_hash,
+
+    @Schema(description = "True if the rule set hash matched the last sync and nothing was compared or written", example = "false")
+    boolean unchanged_since_last_sync
+) {}
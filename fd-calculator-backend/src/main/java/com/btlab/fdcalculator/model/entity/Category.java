@@ -9,7 +9,9 @@ import java.math.BigDecimal;
 @Table(name = "category")
 @Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
 public class Category {
-    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Id @GeneratedValue(strategy = GenerationType.TABLE, generator = "category_id")
+    @TableGenerator(name = "category_id", table = "id_block", pkColumnName = "block_name", valueColumnName = "last_id",
+        pkColumnValue = "category", allocationSize = 100)
     private Long categoryId;
 
     @Column(nullable = false, length = 50, unique = true)
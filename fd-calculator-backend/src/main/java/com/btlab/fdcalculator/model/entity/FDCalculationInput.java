@@ -7,10 +7,19 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "fd_calculation_input")
+@Table(name = "fd_calculation_input", indexes = {
+    // Keyset-paginated history (see CalculationHistoryRepository)
+    @Index(name = "idx_calc_input_product_time", columnList = "product_code, request_timestamp, calc_id"),
+    @Index(name = "idx_calc_input_time", columnList = "request_timestamp, calc_id"),
+    // At most one stored quote per dedupe key (see QuoteDedupeService)
+    @Index(name = "uk_calc_input_quote_key", columnList = "quote_key", unique = true)
+})
 @Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
 public class FDCalculationInput {
-    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Hi/lo blocks from the id_block table (shared with IdBlockAllocator), so inserts can be batched
+    @Id @GeneratedValue(strategy = GenerationType.TABLE, generator = "calc_id")
+    @TableGenerator(name = "calc_id", table = "id_block", pkColumnName = "block_name", valueColumnName = "last_id",
+        pkColumnValue = "fd_calculation_input", allocationSize = 100)
     private Long calcId;
 
     @Column(length = 3)
@@ -41,4 +50,7 @@ public class FDCalculationInput {
     private String productCode;  // Store the product code used
 
     private LocalDateTime requestTimestamp;
+
+    @Column(length = 64)
+    private String quoteKey;
 }
@@ -0,0 +1,79 @@
+package com.btlab.fdcalculator.model.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One quote in a single row (inputs and results together), written instead of an
+ * FDCalculationInput / FDCalculationResult pair when fd.storage.single-row is on.
+ * Rows are inserted through CalculationBatchRepository with ids from the same id_block
+ * rows as the split tables, so calc ids are unique across both layouts.
+ */
+@Entity
+@Table(name = "fd_calculation_record", indexes = {
+    @Index(name = "idx_calc_record_product_time", columnList = "product_code, request_timestamp, calc_id"),
+    @Index(name = "idx_calc_record_time", columnList = "request_timestamp, calc_id"),
+    @Index(name = "uk_calc_record_quote_key", columnList = "quote_key", unique = true)
+})
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class FDCalculationRecord {
+    @Id
+    private Long calcId;
+
+    @Column(nullable = false)
+    private Long resultId;
+
+    @Column(length = 3)
+    private String currencyCode;
+
+    @Column(nullable = false, precision = 20, scale = 4)
+    private BigDecimal principalAmount;
+
+    @Column(nullable = false)
+    private Integer tenureValue;
+
+    @Column(length = 10, nullable = false)
+    private String tenureUnit;
+
+    @Column(length = 10, nullable = false)
+    private String interestType;
+
+    @Column(length = 20)
+    private String compoundingFrequency;
+
+    @Column(length = 50)
+    private String category1Code;
+
+    @Column(length = 50)
+    private String category2Code;
+
+    @Column(length = 20)
+    private String productCode;
+
+    private LocalDateTime requestTimestamp;
+
+    @Column(nullable = false, precision = 20, scale = 4)
+    private BigDecimal maturityValue;
+
+    @Column(nullable = false)
+    private LocalDate maturityDate;
+
+    @Column(precision = 7, scale = 4)
+    private BigDecimal apy;
+
+    @Column(precision = 7, scale = 4)
+    private BigDecimal effectiveRate;
+
+    @Column(length = 20)
+    private String payoutFreq;
+
+    @Column(precision = 20, scale = 4)
+    private BigDecimal payoutAmount;
+
+    @Column(length = 64)
+    private String quoteKey;
+}
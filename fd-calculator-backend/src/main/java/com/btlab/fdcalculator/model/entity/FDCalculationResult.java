@@ -10,7 +10,9 @@ import java.time.LocalDate;
 @Table(name = "fd_calculation_result")
 @Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
 public class FDCalculationResult {
-    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Id @GeneratedValue(strategy = GenerationType.TABLE, generator = "result_id")
+    @TableGenerator(name = "result_id", table = "id_block", pkColumnName = "block_name", valueColumnName = "last_id",
+        pkColumnValue = "fd_calculation_result", allocationSize = 100)
     private Long resultId;
 
     @OneToOne(optional = false)
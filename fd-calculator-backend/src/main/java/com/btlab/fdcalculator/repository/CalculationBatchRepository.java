@@ -0,0 +1,240 @@
+package com.btlab.fdcalculator.repository;
+
+import com.btlab.fdcalculator.model.domain.CalculationRecord;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Writes calculation input/result rows with JDBC batch inserts, for bulk paths that
+ * would otherwise do two save() calls per quote. Ids come from IdBlockAllocator, so
+ * they can be handed out before the rows are written. With fd.storage.single-row on,
+ * each quote is one fd_calculation_record row instead, and with fd.storage.partitioned on
+ * one row in the monthly partition of its request time (see CalculationPartitionRepository).
+ */
+@Repository
+@RequiredArgsConstructor
+public class CalculationBatchRepository {
+
+    private static final String INSERT_INPUT_SQL = """
+        INSERT INTO fd_calculation_input
+            (calc_id, currency_code, principal_amount, tenure_value, tenure_unit, interest_type,
+             compounding_frequency, category1code, category2code, product_code, request_timestamp, quote_key)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+        """;
+
+    private static final String INSERT_RESULT_SQL = """
+        INSERT INTO fd_calculation_result
+            (result_id, calc_id, maturity_value, maturity_date, apy, effective_rate, payout_freq, payout_amount)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+        """;
+
+    private static final String INSERT_RECORD_SQL = """
+        INSERT INTO %s
+            (calc_id, result_id, currency_code, principal_amount, tenure_value, tenure_unit, interest_type,
+             compounding_frequency, category1code, category2code, product_code, request_timestamp,
+             maturity_value, maturity_date, apy, effective_rate, payout_freq, payout_amount, quote_key)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final IdBlockAllocator idBlockAllocator;
+    private final CalculationPartitionRepository partitionRepository;
+
+    @Value("${fd.batch.jdbc-batch-size:500}")
+    private int jdbcBatchSize;
+
+    @Value("${fd.storage.single-row:false}")
+    private boolean singleRow;
+
+    @Value("${fd.storage.partitioned:false}")
+    private boolean partitioned;
+
+    public boolean singleRowStorage() {
+        return singleRow;
+    }
+
+    public boolean partitionedStorage() {
+        return partitioned;
+    }
+
+    /**
+     * The record with a fresh calcId and resultId, for writing it later
+     */
+    public CalculationRecord assignIds(CalculationRecord record) {
+        return record.toBuilder()
+            .calcId(idBlockAllocator.nextId(IdBlockAllocator.CALCULATION_INPUT))
+            .resultId(idBlockAllocator.nextId(IdBlockAllocator.CALCULATION_RESULT))
+            .build();
+    }
+
+    /**
+     * Insert all records and return them with calcId and resultId filled in, in the same order.
+     * Records that already have ids (see assignIds) are written with them.
+     */
+    @Transactional
+    public List<CalculationRecord> insertAll(List<CalculationRecord> records) {
+        List<CalculationRecord> saved = new ArrayList<>(records.size());
+        for (CalculationRecord record : records) {
+            saved.add(record.calcId() != null ? record : assignIds(record));
+        }
+        if (partitioned) {
+            insertPartitioned(saved);
+            return saved;
+        }
+        for (int from = 0; from < saved.size(); from += jdbcBatchSize) {
+            List<CalculationRecord> chunk = saved.subList(from, Math.min(from + jdbcBatchSize, saved.size()));
+            if (singleRow) {
+                insertRecords("fd_calculation_record", chunk);
+            } else {
+                insertInputs(chunk);
+                insertResults(chunk);
+            }
+        }
+        return saved;
+    }
+
+    /**
+     * Calc id of the quote stored under a dedupe key in the configured layout, e.g. after an
+     * insert was rejected by the key's unique index
+     * @param requestTimestamp request time of the quote, which picks the partition
+     */
+    public Optional<Long> findCalcIdByQuoteKey(String quoteKey, LocalDateTime requestTimestamp) {
+        String table;
+        if (partitioned) {
+            YearMonth month = CalculationPartitionRepository.monthOf(requestTimestamp);
+            if (!partitionRepository.months().contains(month)) {
+                return Optional.empty();
+            }
+            table = CalculationPartitionRepository.tableName(month);
+        } else {
+            table = singleRow ? "fd_calculation_record" : "fd_calculation_input";
+        }
+        List<Long> ids = jdbcTemplate.queryForList(
+            "SELECT calc_id FROM " + table + " WHERE quote_key = ?", Long.class, quoteKey);
+        return ids.stream().findFirst();
+    }
+
+    private void insertPartitioned(List<CalculationRecord> records) {
+        Map<YearMonth, List<CalculationRecord>> byMonth = new TreeMap<>();
+        for (CalculationRecord record : records) {
+            byMonth.computeIfAbsent(CalculationPartitionRepository.monthOf(record.requestTimestamp()),
+                m -> new ArrayList<>()).add(record);
+        }
+        byMonth.forEach((month, monthRecords) -> {
+            partitionRepository.ensure(month);
+            try {
+                insertMonth(month, monthRecords);
+            } catch (BadSqlGrammarException e) {
+                // Renamed for archiving since this node last looked; the late rows start a new partition
+                partitionRepository.refresh();
+                partitionRepository.ensure(month);
+                insertMonth(month, monthRecords);
+            }
+        });
+    }
+
+    private void insertMonth(YearMonth month, List<CalculationRecord> records) {
+        String table = CalculationPartitionRepository.tableName(month);
+        for (int from = 0; from < records.size(); from += jdbcBatchSize) {
+            insertRecords(table, records.subList(from, Math.min(from + jdbcBatchSize, records.size())));
+        }
+    }
+
+    private void insertInputs(List<CalculationRecord> chunk) {
+        jdbcTemplate.batchUpdate(INSERT_INPUT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                CalculationRecord r = chunk.get(i);
+                ps.setLong(1, r.calcId());
+                ps.setString(2, r.currencyCode());
+                ps.setBigDecimal(3, r.principalAmount());
+                ps.setInt(4, r.tenureValue());
+                ps.setString(5, r.tenureUnit());
+                ps.setString(6, r.interestType());
+                ps.setString(7, r.compoundingFrequency());
+                ps.setString(8, r.category1Code());
+                ps.setString(9, r.category2Code());
+                ps.setString(10, r.productCode());
+                ps.setTimestamp(11, Timestamp.valueOf(r.requestTimestamp()));
+                ps.setString(12, r.quoteKey());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return chunk.size();
+            }
+        });
+    }
+
+    private void insertResults(List<CalculationRecord> chunk) {
+        jdbcTemplate.batchUpdate(INSERT_RESULT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                CalculationRecord r = chunk.get(i);
+                ps.setLong(1, r.resultId());
+                ps.setLong(2, r.calcId());
+                ps.setBigDecimal(3, r.maturityValue());
+                ps.setDate(4, Date.valueOf(r.maturityDate()));
+                ps.setBigDecimal(5, r.apy());
+                ps.setBigDecimal(6, r.effectiveRate());
+                ps.setString(7, r.payoutFreq());
+                ps.setBigDecimal(8, r.payoutAmount());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return chunk.size();
+            }
+        });
+    }
+
+    private void insertRecords(String table, List<CalculationRecord> chunk) {
+        jdbcTemplate.batchUpdate(String.format(INSERT_RECORD_SQL, table), new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                CalculationRecord r = chunk.get(i);
+                ps.setLong(1, r.calcId());
+                ps.setLong(2, r.resultId());
+                ps.setString(3, r.currencyCode());
+                ps.setBigDecimal(4, r.principalAmount());
+                ps.setInt(5, r.tenureValue());
+                ps.setString(6, r.tenureUnit());
+                ps.setString(7, r.interestType());
+                ps.setString(8, r.compoundingFrequency());
+                ps.setString(9, r.category1Code());
+                ps.setString(10, r.category2Code());
+                ps.setString(11, r.productCode());
+                ps.setTimestamp(12, Timestamp.valueOf(r.requestTimestamp()));
+                ps.setBigDecimal(13, r.maturityValue());
+                ps.setDate(14, Date.valueOf(r.maturityDate()));
+                ps.setBigDecimal(15, r.apy());
+                ps.setBigDecimal(16, r.effectiveRate());
+                ps.setString(17, r.payoutFreq());
+                ps.setBigDecimal(18, r.payoutAmount());
+                ps.setString(19, r.quoteKey());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return chunk.size();
+            }
+        });
+    }
+}
@@ -0,0 +1,255 @@
+package com.btlab.fdcalculator.repository;
+
+import com.btlab.fdcalculator.model.dto.CalculationExportRow;
+import com.btlab.fdcalculator.model.dto.CalculationHistoryPage;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Keyset-paginated reads of saved calculations, newest first (request_timestamp, then calc_id).
+ *
+ * Each page continues strictly after the last row of the previous one instead of using an
+ * offset, so with the (product_code, request_timestamp, calc_id) and (request_timestamp, calc_id)
+ * indexes a page is one index range scan that stops after limit rows, however deep the page.
+ * Category is checked on the rows of that range. Rows are read as projections, without entities.
+ *
+ * The export reads every matching row through a forward-only, read-only cursor and hands each
+ * one to a callback as it is fetched, so only fd.export.fetch-size rows are in memory at a time.
+ *
+ * Monthly partitions (fd.storage.partitioned) are read like fd_calculation_record. Only months
+ * overlapping the requested time range are queried, and as the partitions hold disjoint months,
+ * a history page walks them newest first and stops once it has enough rows.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CalculationHistoryRepository {
+
+    private static final String SPLIT_SQL = """
+        SELECT i.calc_id, i.request_timestamp, i.product_code, i.category1code, i.category2code, i.currency_code,
+               i.principal_amount, i.tenure_value, i.tenure_unit, r.maturity_value, r.maturity_date
+        FROM fd_calculation_input i
+        JOIN fd_calculation_result r ON r.calc_id = i.calc_id
+        """;
+
+    private static final String SINGLE_ROW_SQL = """
+        SELECT i.calc_id, i.request_timestamp, i.product_code, i.category1code, i.category2code, i.currency_code,
+               i.principal_amount, i.tenure_value, i.tenure_unit, i.maturity_value, i.maturity_date
+        FROM %s i
+        """;
+
+    private static final String EXPORT_SPLIT_SQL = """
+        SELECT i.calc_id, i.request_timestamp, i.product_code, i.category1code, i.category2code, i.currency_code,
+               i.principal_amount, i.tenure_value, i.tenure_unit, i.interest_type, i.compounding_frequency,
+               r.maturity_value, r.maturity_date, r.apy, r.effective_rate, r.payout_freq, r.payout_amount
+        FROM fd_calculation_input i
+        JOIN fd_calculation_result r ON r.calc_id = i.calc_id
+        """;
+
+    private static final String EXPORT_SINGLE_ROW_SQL = """
+        SELECT i.calc_id, i.request_timestamp, i.product_code, i.category1code, i.category2code, i.currency_code,
+               i.principal_amount, i.tenure_value, i.tenure_unit, i.interest_type, i.compounding_frequency,
+               i.maturity_value, i.maturity_date, i.apy, i.effective_rate, i.payout_freq, i.payout_amount
+        FROM %s i
+        """;
+
+    private static final String SINGLE_ROW_TABLE = "fd_calculation_record";
+
+    private static final Comparator<CalculationHistoryPage.Item> NEWEST_FIRST = Comparator
+        .comparing(CalculationHistoryPage.Item::request_timestamp)
+        .thenComparing(CalculationHistoryPage.Item::calc_id)
+        .reversed();
+
+    private static final RowMapper<CalculationHistoryPage.Item> ITEM_MAPPER = (rs, rowNum) -> {
+        Timestamp requestTimestamp = rs.getTimestamp(2);
+        Date maturityDate = rs.getDate(11);
+        return new CalculationHistoryPage.Item(
+            rs.getLong(1),
+            requestTimestamp != null ? requestTimestamp.toLocalDateTime() : null,
+            rs.getString(3),
+            rs.getString(4),
+            rs.getString(5),
+            rs.getString(6),
+            rs.getBigDecimal(7),
+            rs.getInt(8),
+            rs.getString(9),
+            rs.getBigDecimal(10),
+            maturityDate != null ? maturityDate.toLocalDate() : null);
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CalculationPartitionRepository partitionRepository;
+
+    @Value("${fd.export.fetch-size:1000}")
+    private int exportFetchSize;
+
+    /**
+     * Up to limit calculations from all storage layouts, newest first
+     *
+     * @param productCode      only this product, or null for all
+     * @param from             requested at or after, or null
+     * @param to               requested before, or null
+     * @param category         only quotes with this category code in either slot, or null
+     * @param afterTimestamp   request timestamp of the last row of the previous page, or null for the first page
+     * @param afterCalcId      calc id of the last row of the previous page (with afterTimestamp)
+     */
+    public List<CalculationHistoryPage.Item> findPage(String productCode, LocalDateTime from, LocalDateTime to,
+            String category, LocalDateTime afterTimestamp, Long afterCalcId, int limit) {
+        List<CalculationHistoryPage.Item> items = new ArrayList<>(3 * limit);
+        items.addAll(query(SPLIT_SQL, productCode, from, to, category, afterTimestamp, afterCalcId, limit));
+        items.addAll(query(String.format(SINGLE_ROW_SQL, SINGLE_ROW_TABLE),
+            productCode, from, to, category, afterTimestamp, afterCalcId, limit));
+        int fromPartitions = 0;
+        for (YearMonth month : partitionRepository.months().descendingSet()) {
+            if (fromPartitions == limit) {
+                break;
+            }
+            if (!overlaps(month, from, to) || (afterTimestamp != null && startOf(month).isAfter(afterTimestamp))) {
+                continue;
+            }
+            List<CalculationHistoryPage.Item> rows = query(
+                String.format(SINGLE_ROW_SQL, CalculationPartitionRepository.tableName(month)),
+                productCode, from, to, category, afterTimestamp, afterCalcId, limit - fromPartitions);
+            items.addAll(rows);
+            fromPartitions += rows.size();
+        }
+        items.sort(NEWEST_FIRST);
+        return items.size() > limit ? items.subList(0, limit) : items;
+    }
+
+    /**
+     * Pass every calculation matching the filters to sink, oldest first within each storage layout
+     * (input/result tables, fd_calculation_record, then the monthly partitions in order).
+     * Rows are read from an open cursor while sink runs; nothing is collected. Call inside a
+     * read-only transaction so the cursor's connection is held for the whole read.
+     */
+    public void exportAll(String productCode, LocalDateTime from, LocalDateTime to, String category,
+            Consumer<CalculationExportRow> sink) {
+        export(EXPORT_SPLIT_SQL, productCode, from, to, category, sink);
+        export(String.format(EXPORT_SINGLE_ROW_SQL, SINGLE_ROW_TABLE), productCode, from, to, category, sink);
+        for (YearMonth month : partitionRepository.months()) {
+            if (overlaps(month, from, to)) {
+                export(String.format(EXPORT_SINGLE_ROW_SQL, CalculationPartitionRepository.tableName(month)),
+                    productCode, from, to, category, sink);
+            }
+        }
+    }
+
+    /**
+     * Pass every row of one monthly partition table to sink, oldest first, e.g. to archive it
+     */
+    public void exportPartition(String table, Consumer<CalculationExportRow> sink) {
+        export(String.format(EXPORT_SINGLE_ROW_SQL, table), null, null, null, null, sink);
+    }
+
+    private List<CalculationHistoryPage.Item> query(String select, String productCode, LocalDateTime from,
+            LocalDateTime to, String category, LocalDateTime afterTimestamp, Long afterCalcId, int limit) {
+        StringBuilder sql = new StringBuilder(select).append(" WHERE i.request_timestamp IS NOT NULL");
+        List<Object> args = new ArrayList<>();
+        appendFilters(sql, args, productCode, from, to);
+        if (afterTimestamp != null) {
+            // Written as a range on the leading column plus a tie-break, so it bounds the index scan
+            sql.append(" AND i.request_timestamp <= ? AND (i.request_timestamp < ? OR i.calc_id < ?)");
+            args.add(Timestamp.valueOf(afterTimestamp));
+            args.add(Timestamp.valueOf(afterTimestamp));
+            args.add(afterCalcId);
+        }
+        appendCategory(sql, args, category);
+        sql.append(" ORDER BY i.request_timestamp DESC, i.calc_id DESC LIMIT ?");
+        args.add(limit);
+        return jdbcTemplate.query(sql.toString(), ITEM_MAPPER, args.toArray());
+    }
+
+    private void export(String select, String productCode, LocalDateTime from, LocalDateTime to, String category,
+            Consumer<CalculationExportRow> sink) {
+        StringBuilder sql = new StringBuilder(select).append(" WHERE 1 = 1");
+        List<Object> args = new ArrayList<>();
+        appendFilters(sql, args, productCode, from, to);
+        appendCategory(sql, args, category);
+        // Index order, so the cursor streams without a sort
+        sql.append(" ORDER BY i.request_timestamp, i.calc_id");
+
+        RowCallbackHandler handler = rs -> sink.accept(toExportRow(rs));
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql.toString(),
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            // Rows per round trip; with MySQL this needs useCursorFetch=true, otherwise the driver reads everything
+            ps.setFetchSize(exportFetchSize);
+            for (int i = 0; i < args.size(); i++) {
+                ps.setObject(i + 1, args.get(i));
+            }
+            return ps;
+        }, handler);
+    }
+
+    private static boolean overlaps(YearMonth month, LocalDateTime from, LocalDateTime to) {
+        return (to == null || startOf(month).isBefore(to))
+            && (from == null || startOf(month.plusMonths(1)).isAfter(from));
+    }
+
+    private static LocalDateTime startOf(YearMonth month) {
+        return month.atDay(1).atStartOfDay();
+    }
+
+    private static void appendFilters(StringBuilder sql, List<Object> args, String productCode,
+            LocalDateTime from, LocalDateTime to) {
+        if (productCode != null) {
+            sql.append(" AND i.product_code = ?");
+            args.add(productCode);
+        }
+        if (from != null) {
+            sql.append(" AND i.request_timestamp >= ?");
+            args.add(Timestamp.valueOf(from));
+        }
+        if (to != null) {
+            sql.append(" AND i.request_timestamp < ?");
+            args.add(Timestamp.valueOf(to));
+        }
+    }
+
+    private static void appendCategory(StringBuilder sql, List<Object> args, String category) {
+        if (category != null) {
+            sql.append(" AND (i.category1code = ? OR i.category2code = ?)");
+            args.add(category);
+            args.add(category);
+        }
+    }
+
+    private static CalculationExportRow toExportRow(ResultSet rs) throws SQLException {
+        Timestamp requestTimestamp = rs.getTimestamp(2);
+        Date maturityDate = rs.getDate(13);
+        return new CalculationExportRow(
+            rs.getLong(1),
+            requestTimestamp != null ? requestTimestamp.toLocalDateTime() : null,
+            rs.getString(3),
+            rs.getString(4),
+            rs.getString(5),
+            rs.getString(6),
+            rs.getBigDecimal(7),
+            rs.getInt(8),
+            rs.getString(9),
+            rs.getString(10),
+            rs.getString(11),
+            rs.getBigDecimal(12),
+            maturityDate != null ? maturityDate.toLocalDate() : null,
+            rs.getBigDecimal(14),
+            rs.getBigDecimal(15),
+            rs.getString(16),
+            rs.getBigDecimal(17));
+    }
+}
@@ -0,0 +1,269 @@
+package com.btlab.fdcalculator.repository;
+
+import com.btlab.fdcalculator.model.dto.FDCalculationResponse;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Monthly partitions of the single-row calculation layout, used when fd.storage.partitioned is on.
+ *
+ * Each month's quotes go to their own table, fd_calculation_record_yyyymm, created on first use
+ * with the columns of fd_calculation_record and its own primary key and indexes. Indexes therefore
+ * only ever cover one month, and a month past the retention horizon is removed with one DROP TABLE
+ * instead of deleting its rows (see CalculationRetentionService). Tables are found by name, so
+ * partitions created by other nodes are picked up by refresh().
+ *
+ * Before it is archived, a partition is renamed to fd_calculation_record_yyyymm_archiving. That
+ * takes it out of the write and read paths at once: nothing can be added to it while it is copied,
+ * and a late insert for the month creates a new partition, archived by a later run.
+ *
+ * DDL runs in its own transaction: on MySQL it would otherwise commit the caller's inserts early.
+ */
+@Repository
+@DependsOn("entityManagerFactory") // partitions copy the columns of fd_calculation_record
+@RequiredArgsConstructor
+@Slf4j
+public class CalculationPartitionRepository {
+
+    private static final String TABLE_PREFIX = "fd_calculation_record_";
+    private static final String ARCHIVING_SUFFIX = "_archiving";
+
+    private static final Pattern TABLE_NAME = Pattern.compile("fd_calculation_record_(\\d{6})", Pattern.CASE_INSENSITIVE);
+    private static final Pattern ARCHIVING_TABLE_NAME =
+        Pattern.compile("fd_calculation_record_(\\d{6})_archiving", Pattern.CASE_INSENSITIVE);
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private static final String SELECT_RESPONSE_SQL = """
+        SELECT maturity_value, maturity_date, apy, effective_rate, payout_freq, payout_amount, calc_id, result_id,
+               category1code, category2code, product_code, principal_amount, tenure_value, tenure_unit
+        FROM %s WHERE calc_id = ?
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+
+    // Immutable snapshot, replaced when partitions are created, dropped or rediscovered
+    private volatile NavigableSet<YearMonth> months = Collections.emptyNavigableSet();
+    private volatile NavigableSet<YearMonth> archivingMonths = Collections.emptyNavigableSet();
+    private TransactionTemplate ddlTransaction;
+
+    @PostConstruct
+    void init() {
+        ddlTransaction = new TransactionTemplate(transactionManager);
+        ddlTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        refresh();
+        months.forEach(this::addQuoteKeyIfMissing);
+    }
+
+    public static String tableName(YearMonth month) {
+        return TABLE_PREFIX + month.format(SUFFIX);
+    }
+
+    /**
+     * Name of the month's partition while it is being archived
+     */
+    public static String archivingTableName(YearMonth month) {
+        return tableName(month) + ARCHIVING_SUFFIX;
+    }
+
+    public static YearMonth monthOf(LocalDateTime timestamp) {
+        return YearMonth.from(timestamp);
+    }
+
+    /**
+     * Existing partitions, oldest first
+     */
+    public NavigableSet<YearMonth> months() {
+        return months;
+    }
+
+    /**
+     * Partitions renamed for archiving and not dropped yet, oldest first
+     */
+    public NavigableSet<YearMonth> archivingMonths() {
+        return archivingMonths;
+    }
+
+    /**
+     * Re-read the partition tables from the database schema
+     */
+    public void refresh() {
+        NavigableSet<YearMonth> live = new TreeSet<>();
+        NavigableSet<YearMonth> archiving = new TreeSet<>();
+        jdbcTemplate.execute((ConnectionCallback<Void>) con -> {
+            DatabaseMetaData metaData = con.getMetaData();
+            try (ResultSet rs = metaData.getTables(con.getCatalog(), con.getSchema(), "%", new String[] {"TABLE"})) {
+                while (rs.next()) {
+                    String name = rs.getString("TABLE_NAME");
+                    Matcher matcher = TABLE_NAME.matcher(name);
+                    if (matcher.matches()) {
+                        live.add(YearMonth.parse(matcher.group(1), SUFFIX));
+                    }
+                    matcher = ARCHIVING_TABLE_NAME.matcher(name);
+                    if (matcher.matches()) {
+                        archiving.add(YearMonth.parse(matcher.group(1), SUFFIX));
+                    }
+                }
+            }
+            return null;
+        });
+        months = Collections.unmodifiableNavigableSet(live);
+        archivingMonths = Collections.unmodifiableNavigableSet(archiving);
+    }
+
+    /**
+     * Create the month's partition if it does not exist yet
+     */
+    public void ensure(YearMonth month) {
+        if (months.contains(month)) {
+            return;
+        }
+        synchronized (this) {
+            refresh();
+            if (months.contains(month)) {
+                return;
+            }
+            String table = tableName(month);
+            String suffix = month.format(SUFFIX);
+            try {
+                ddlTransaction.executeWithoutResult(status -> {
+                    // The key is declared inline: H2 does not copy NOT NULL, so it cannot be added afterwards
+                    jdbcTemplate.execute("CREATE TABLE " + table
+                        + " (PRIMARY KEY (calc_id)) AS SELECT * FROM fd_calculation_record WHERE 1 = 0");
+                    // Same indexes as fd_calculation_record; names carry the month as H2 wants them unique per schema
+                    jdbcTemplate.execute("CREATE INDEX idx_calc_p" + suffix + "_product_time ON " + table
+                        + " (product_code, request_timestamp, calc_id)");
+                    jdbcTemplate.execute("CREATE INDEX idx_calc_p" + suffix + "_time ON " + table
+                        + " (request_timestamp, calc_id)");
+                    jdbcTemplate.execute("CREATE UNIQUE INDEX uk_calc_p" + suffix + "_quote_key ON " + table
+                        + " (quote_key)");
+                });
+                log.info("Created calculation partition {}", table);
+            } catch (DataAccessException e) {
+                // Another node may have created it meanwhile; only a still missing table is an error
+                refresh();
+                if (!months.contains(month)) {
+                    throw e;
+                }
+                log.warn("Creating calculation partition {} failed; using the existing table", table, e);
+            }
+            refresh();
+        }
+    }
+
+    /**
+     * Bring a partition created before quote deduplication up to the current columns
+     */
+    private void addQuoteKeyIfMissing(YearMonth month) {
+        String table = tableName(month);
+        boolean present = Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) con -> {
+            DatabaseMetaData metaData = con.getMetaData();
+            String storedName = metaData.storesUpperCaseIdentifiers() ? table.toUpperCase(Locale.ROOT) : table;
+            try (ResultSet rs = metaData.getColumns(con.getCatalog(), con.getSchema(), storedName, "%")) {
+                while (rs.next()) {
+                    if ("quote_key".equalsIgnoreCase(rs.getString("COLUMN_NAME"))) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }));
+        if (!present) {
+            String suffix = month.format(SUFFIX);
+            ddlTransaction.executeWithoutResult(status -> {
+                jdbcTemplate.execute("ALTER TABLE " + table + " ADD COLUMN quote_key VARCHAR(64)");
+                jdbcTemplate.execute("CREATE UNIQUE INDEX uk_calc_p" + suffix + "_quote_key ON " + table
+                    + " (quote_key)");
+            });
+            log.info("Added quote_key to calculation partition {}", table);
+        }
+    }
+
+    /**
+     * Rename the month's partition to its archiving name, so that nothing is written to it any more
+     */
+    public synchronized void detach(YearMonth month) {
+        String table = tableName(month);
+        ddlTransaction.executeWithoutResult(status ->
+            jdbcTemplate.execute("ALTER TABLE " + table + " RENAME TO " + archivingTableName(month)));
+        refresh();
+        log.info("Renamed calculation partition {} for archiving", table);
+    }
+
+    /**
+     * Drop the month's partition renamed for archiving. Archive it first; its rows are gone afterwards.
+     */
+    public synchronized void dropArchiving(YearMonth month) {
+        String table = archivingTableName(month);
+        ddlTransaction.executeWithoutResult(status -> jdbcTemplate.execute("DROP TABLE " + table));
+        refresh();
+        log.info("Dropped calculation partition {}", table);
+    }
+
+    /**
+     * @param table a partition table, see tableName and archivingTableName
+     */
+    public long countRows(String table) {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * A stored quote from whichever partition holds it, newest partitions first
+     */
+    public Optional<FDCalculationResponse> findResponse(Long calcId) {
+        NavigableSet<YearMonth> current = months;
+        if (current.isEmpty()) {
+            return Optional.empty();
+        }
+        // One round trip of primary key lookups, one per partition
+        List<String> selects = new ArrayList<>(current.size());
+        List<Object> args = new ArrayList<>(current.size());
+        for (YearMonth month : current.descendingSet()) {
+            selects.add(String.format(Locale.ROOT, SELECT_RESPONSE_SQL, tableName(month)));
+            args.add(calcId);
+        }
+        List<FDCalculationResponse> found = jdbcTemplate.query(String.join(" UNION ALL ", selects),
+            (rs, rowNum) -> new FDCalculationResponse(
+                rs.getBigDecimal(1),
+                rs.getDate(2).toLocalDate().toString(),
+                rs.getBigDecimal(3),
+                rs.getBigDecimal(4),
+                rs.getString(5),
+                rs.getBigDecimal(6),
+                rs.getLong(7),
+                rs.getLong(8),
+                rs.getString(9),
+                rs.getString(10),
+                rs.getString(11),
+                rs.getBigDecimal(12),
+                rs.getInt(13),
+                rs.getString(14)),
+            args.toArray());
+        return found.stream().findFirst();
+    }
+}
@@ -0,0 +1,51 @@
+package com.btlab.fdcalculator.repository;
+
+import com.btlab.fdcalculator.model.entity.Category;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Writes category rows with JDBC batch statements, for rule syncs touching many
+ * categories at once
+ */
+@Repository
+@RequiredArgsConstructor
+public class CategoryBatchRepository {
+
+    private static final String INSERT_SQL =
+        "INSERT INTO category (category_id, category_name, additional_percentage) VALUES (?, ?, ?)";
+
+    private static final String UPDATE_SQL =
+        "UPDATE category SET additional_percentage = ? WHERE category_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final IdBlockAllocator idBlockAllocator;
+
+    @Value("${fd.batch.jdbc-batch-size:500}")
+    private int jdbcBatchSize;
+
+    /**
+     * Insert new categories (assigning their ids) and update the percentage of existing ones
+     * (by id), in one transaction
+     */
+    @Transactional
+    public void apply(List<Category> inserts, List<Category> updates) {
+        for (Category category : inserts) {
+            category.setCategoryId(idBlockAllocator.nextId(IdBlockAllocator.CATEGORY));
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, inserts, jdbcBatchSize, (ps, category) -> {
+            ps.setLong(1, category.getCategoryId());
+            ps.setString(2, category.getCategoryName());
+            ps.setBigDecimal(3, category.getAdditionalPercentage());
+        });
+        jdbcTemplate.batchUpdate(UPDATE_SQL, updates, jdbcBatchSize, (ps, category) -> {
+            ps.setBigDecimal(1, category.getAdditionalPercentage());
+            ps.setLong(2, category.getCategoryId());
+        });
+    }
+}
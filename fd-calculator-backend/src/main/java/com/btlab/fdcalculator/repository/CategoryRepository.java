@@ -3,8 +3,12 @@ package com.btlab.fdcalculator.repository;
 import com.btlab.fdcalculator.model.entity.Category;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface CategoryRepository extends JpaRepository<Category, Long> {
     Optional<Category> findByCategoryName(String categoryName);
+
+    List<Category> findByCategoryNameIn(Collection<String> categoryNames);
 }
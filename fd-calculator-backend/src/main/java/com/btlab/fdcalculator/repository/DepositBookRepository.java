@@ -0,0 +1,162 @@
+package com.btlab.fdcalculator.repository;
+
+import com.btlab.fdcalculator.model.domain.DepositBook;
+import com.btlab.fdcalculator.model.domain.PayoutPlan;
+import com.btlab.fdcalculator.util.CompoundInterestKernel;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Loads saved deposits straight from JDBC into a column-oriented DepositBook,
+ * one forward-only pass without materialising entities.
+ *
+ * Calculations are quotes, not bookings: a customer who recomputes the same deposit saves it again.
+ * Quotes with the same terms, rate and dates made on the same day are therefore counted as one
+ * deposit, so repeats do not inflate the projected outflows.
+ */
+@Repository
+@RequiredArgsConstructor
+@Slf4j
+public class DepositBookRepository {
+
+    private static final String SELECT_BOOK_SQL = """
+        SELECT principal_amount, tenure_value, tenure_unit, interest_type, compounding_frequency,
+               currency_code, MIN(request_timestamp), effective_rate, maturity_date, payout_freq
+        FROM (%s) quotes
+        GROUP BY principal_amount, tenure_value, tenure_unit, interest_type, compounding_frequency,
+                 currency_code, CAST(request_timestamp AS DATE), effective_rate, maturity_date, payout_freq
+        """;
+
+    private static final String SELECT_QUOTES_SQL = """
+        SELECT i.principal_amount, i.tenure_value, i.tenure_unit, i.interest_type, i.compounding_frequency,
+               i.currency_code, i.request_timestamp, r.effective_rate, r.maturity_date, r.payout_freq
+        FROM fd_calculation_input i
+        JOIN fd_calculation_result r ON r.calc_id = i.calc_id
+        UNION ALL
+        SELECT principal_amount, tenure_value, tenure_unit, interest_type, compounding_frequency,
+               currency_code, request_timestamp, effective_rate, maturity_date, payout_freq
+        FROM fd_calculation_record
+        """;
+
+    private static final String SELECT_PARTITION_SQL = """
+        SELECT principal_amount, tenure_value, tenure_unit, interest_type, compounding_frequency,
+               currency_code, request_timestamp, effective_rate, maturity_date, payout_freq
+        FROM %s
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CalculationPartitionRepository partitionRepository;
+
+    @Value("${fd.projection.fetch-size:10000}")
+    private int fetchSize;
+
+    public DepositBook loadBook() {
+        long started = System.nanoTime();
+        List<String> partitionTables = partitionRepository.months().stream()
+            .map(CalculationPartitionRepository::tableName)
+            .toList();
+        StringBuilder quotes = new StringBuilder(SELECT_QUOTES_SQL);
+        for (String table : partitionTables) {
+            quotes.append(" UNION ALL ").append(String.format(SELECT_PARTITION_SQL, table));
+        }
+        String sql = String.format(SELECT_BOOK_SQL, quotes);
+        // Upper bound: repeated quotes are collapsed by the query
+        int expectedRows = countRows(partitionTables);
+        DepositBook.Builder builder = DepositBook.builder(expectedRows);
+        int[] skipped = new int[1];
+
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            return ps;
+        }, (ResultSet rs) -> {
+            if (!addRow(builder, rs)) {
+                skipped[0]++;
+            }
+        });
+
+        DepositBook book = builder.build();
+        log.info("Loaded deposit book: {} rows ({} skipped) in {} ms",
+            book.size(), skipped[0], (System.nanoTime() - started) / 1_000_000);
+        return book;
+    }
+
+    private int countRows(List<String> partitionTables) {
+        StringBuilder sql = new StringBuilder(
+            "SELECT (SELECT COUNT(*) FROM fd_calculation_result) + (SELECT COUNT(*) FROM fd_calculation_record)");
+        for (String table : partitionTables) {
+            sql.append(" + (SELECT COUNT(*) FROM ").append(table).append(')');
+        }
+        Integer count = jdbcTemplate.queryForObject(sql.toString(), Integer.class);
+        return count == null ? 0 : count;
+    }
+
+    private boolean addRow(DepositBook.Builder builder, ResultSet rs) throws SQLException {
+        BigDecimal principal = rs.getBigDecimal(1);
+        int tenureValue = rs.getInt(2);
+        String tenureUnit = rs.getString(3);
+        String interestType = rs.getString(4);
+        String compoundingFrequency = rs.getString(5);
+        String currencyCode = rs.getString(6);
+        Timestamp requestTimestamp = rs.getTimestamp(7);
+        BigDecimal effectiveRate = rs.getBigDecimal(8);
+        Date maturityDate = rs.getDate(9);
+        String payoutFreq = rs.getString(10);
+
+        int tenureUnitsPerYear = switch (tenureUnit == null ? "" : tenureUnit.toUpperCase()) {
+            case "DAYS" -> 365;
+            case "MONTHS" -> 12;
+            case "YEARS" -> 1;
+            default -> 0;
+        };
+        if (principal == null || effectiveRate == null || requestTimestamp == null || maturityDate == null
+                || tenureUnitsPerYear == 0) {
+            return false;
+        }
+
+        int compoundingPeriodsPerYear;
+        int payoutPeriodsPerYear;
+        if (payoutFreq != null) {
+            // Non-cumulative: same frequency resolution as the quoted payout amount
+            PayoutPlan plan = PayoutPlan.of(payoutFreq, compoundingFrequency);
+            compoundingPeriodsPerYear = plan.compoundingPeriodsPerYear();
+            payoutPeriodsPerYear = plan.payoutPeriodsPerYear();
+        } else {
+            compoundingPeriodsPerYear = switch (compoundingFrequency == null ? "YEARLY" : compoundingFrequency.toUpperCase()) {
+                case "DAILY" -> 365;
+                case "MONTHLY" -> 12;
+                case "QUARTERLY" -> 4;
+                case "YEARLY" -> 1;
+                default -> 0;
+            };
+            if (compoundingPeriodsPerYear == 0) {
+                return false;
+            }
+            payoutPeriodsPerYear = 0;
+        }
+
+        builder.add(
+            CompoundInterestKernel.toAmountE4(principal),
+            Math.toIntExact(CompoundInterestKernel.toRateE4(effectiveRate)),
+            (int) requestTimestamp.toLocalDateTime().toLocalDate().toEpochDay(),
+            (int) maturityDate.toLocalDate().toEpochDay(),
+            tenureValue,
+            tenureUnitsPerYear,
+            compoundingPeriodsPerYear,
+            payoutPeriodsPerYear,
+            "SIMPLE".equalsIgnoreCase(interestType),
+            currencyCode == null ? "INR" : currencyCode);
+        return true;
+    }
+}
@@ -0,0 +1,25 @@
+package com.btlab.fdcalculator.repository;
+
+import com.btlab.fdcalculator.model.dto.FDCalculationResponse;
+import com.btlab.fdcalculator.model.entity.FDCalculationRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface FDCalculationRecordRepository extends JpaRepository<FDCalculationRecord, Long> {
+
+    /**
+     * The stored quote read straight into the response, without hydrating an entity
+     */
+    @Query("""
+        select new com.btlab.fdcalculator.model.dto.FDCalculationResponse(
+            r.maturityValue, cast(r.maturityDate as String), r.apy, r.effectiveRate, r.payoutFreq, r.payoutAmount,
+            r.calcId, r.resultId, r.category1Code, r.category2Code, r.productCode, r.principalAmount,
+            r.tenureValue, r.tenureUnit)
+        from FDCalculationRecord r
+        where r.calcId = :calcId
+        """)
+    Optional<FDCalculationResponse> findResponse(@Param("calcId") Long calcId);
+}
@@ -1,8 +1,24 @@
 package com.btlab.fdcalculator.repository;
 
+import com.btlab.fdcalculator.model.dto.FDCalculationResponse;
 import com.btlab.fdcalculator.model.entity.FDCalculationResult;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
 
 public interface FDCalculationResultRepository extends JpaRepository<FDCalculationResult, Long> {
-    FDCalculationResult findByCalc_CalcId(Long calcId);
+    /**
+     * The stored quote (result joined with its input) read straight into the response
+     */
+    @Query("""
+        select new com.btlab.fdcalculator.model.dto.FDCalculationResponse(
+            r.maturityValue, cast(r.maturityDate as String), r.apy, r.effectiveRate, r.payoutFreq, r.payoutAmount,
+            c.calcId, r.resultId, c.category1Code, c.category2Code, c.productCode, c.principalAmount,
+            c.tenureValue, c.tenureUnit)
+        from FDCalculationResult r join r.calc c
+        where c.calcId = :calcId
+        """)
+    Optional<FDCalculationResponse> findResponse(@Param("calcId") Long calcId);
 }
@@ -0,0 +1,132 @@
+package com.btlab.fdcalculator.repository;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hi/lo id allocation for rows written through JDBC, sharing the id_block table with the
+ * entities' JPA table generators.
+ *
+ * Each id_block row holds the last reserved id of one table. A node reserves a block of ids
+ * by advancing the row in its own short transaction (the row lock serializes nodes) and then
+ * hands them out from memory, so ids stay unique across instances while most inserts need no
+ * round trip for their id. Hibernate reserves blocks from the same rows the same way: with
+ * the pooled-lo optimizer and stored last-used values, it takes the ids above the value it
+ * read, up to and including the value it wrote.
+ *
+ * On startup every row is moved up to at least the highest id stored in its table, so rows
+ * written while the tables used IDENTITY ids are never reused. Monthly calculation partitions
+ * count as fd_calculation_record.
+ */
+@Repository
+@DependsOn("entityManagerFactory") // id_block is created with the JPA schema
+@RequiredArgsConstructor
+@Slf4j
+public class IdBlockAllocator {
+
+    public static final String CALCULATION_INPUT = "fd_calculation_input";
+    public static final String CALCULATION_RESULT = "fd_calculation_result";
+    public static final String CATEGORY = "category";
+
+    // Id columns (table.column) drawing from each id_block row; rows are named after their main table
+    private static final Map<String, List<String>> ID_COLUMNS = Map.of(
+        CALCULATION_INPUT, List.of("fd_calculation_input.calc_id", "fd_calculation_record.calc_id"),
+        CALCULATION_RESULT, List.of("fd_calculation_result.result_id", "fd_calculation_record.result_id"),
+        CATEGORY, List.of("category.category_id"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final CalculationPartitionRepository partitionRepository;
+
+    @Value("${fd.ids.block-size:500}")
+    private int blockSize;
+
+    private final Map<String, Block> blocks = new ConcurrentHashMap<>();
+    private TransactionTemplate reserveTransaction;
+
+    @PostConstruct
+    void init() {
+        reserveTransaction = new TransactionTemplate(transactionManager);
+        reserveTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        ID_COLUMNS.forEach(this::moveUpToStoredIds);
+    }
+
+    /**
+     * Next id of a table, reserving a new block when the current one is used up
+     */
+    public long nextId(String table) {
+        Block block = blocks.computeIfAbsent(table, t -> new Block());
+        synchronized (block) {
+            if (block.next > block.last) {
+                block.last = reserve(table);
+                block.next = block.last - blockSize + 1;
+            }
+            return block.next++;
+        }
+    }
+
+    /**
+     * Advance the table's row by one block and return its new value, the last id of the block
+     */
+    private long reserve(String table) {
+        Long last = reserveTransaction.execute(status -> {
+            int updated = jdbcTemplate.update(
+                "UPDATE id_block SET last_id = last_id + ? WHERE block_name = ?", blockSize, table);
+            if (updated != 1) {
+                throw new IllegalStateException("No id_block row for " + table);
+            }
+            return jdbcTemplate.queryForObject(
+                "SELECT last_id FROM id_block WHERE block_name = ?", Long.class, table);
+        });
+        log.debug("Reserved ids {}..{} of {}", last - blockSize + 1, last, table);
+        return last;
+    }
+
+    private void moveUpToStoredIds(String table, List<String> idColumns) {
+        List<String> columns = new ArrayList<>(idColumns);
+        for (String idColumn : idColumns) {
+            if (idColumn.startsWith("fd_calculation_record.")) {
+                String column = idColumn.substring(idColumn.indexOf('.'));
+                partitionRepository.months().forEach(month ->
+                    columns.add(CalculationPartitionRepository.tableName(month) + column));
+            }
+        }
+        long floor = 0;
+        for (String idColumn : columns) {
+            int dot = idColumn.indexOf('.');
+            Long max = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(" + idColumn.substring(dot + 1) + "), 0) FROM "
+                + idColumn.substring(0, dot), Long.class);
+            floor = Math.max(floor, max != null ? max : 0);
+        }
+        try {
+            jdbcTemplate.update("INSERT INTO id_block (block_name, last_id) VALUES (?, ?)", table, floor);
+            return;
+        } catch (DuplicateKeyException e) {
+            // Row exists (created earlier or by another node starting at the same time)
+        }
+        int moved = jdbcTemplate.update(
+            "UPDATE id_block SET last_id = ? WHERE block_name = ? AND last_id < ?", floor, table, floor);
+        if (moved > 0) {
+            log.info("Moved id block of {} up to stored id {}", table, floor);
+        }
+    }
+
+    private static final class Block {
+        private long next = 1;
+        private long last;
+    }
+}
@@ -0,0 +1,21 @@
+package com.btlab.fdcalculator.scheduler;
+
+import com.btlab.fdcalculator.service.CalculationRetentionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class CalculationRetentionScheduler {
+
+    private final CalculationRetentionService calculationRetentionService;
+
+    @Scheduled(cron = "${fd.retention.cron:0 30 2 * * ?}")
+    public void nightly() {
+        calculationRetentionService.createUpcomingPartitions();
+        if (calculationRetentionService.enabled()) {
+            calculationRetentionService.run();
+        }
+    }
+}
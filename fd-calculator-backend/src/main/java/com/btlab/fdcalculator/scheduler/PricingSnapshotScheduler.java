@@ -0,0 +1,19 @@
+package com.btlab.fdcalculator.scheduler;
+
+import com.btlab.fdcalculator.service.PricingSnapshotService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class PricingSnapshotScheduler {
+
+    private final PricingSnapshotService pricingSnapshotService;
+
+    @Scheduled(fixedDelayString = "${pricing.snapshot.refresh-interval-ms:300000}",
+               initialDelayString = "${pricing.snapshot.refresh-interval-ms:300000}")
+    public void refreshSnapshots() {
+        pricingSnapshotService.refreshAll();
+    }
+}
@@ -0,0 +1,30 @@
+package com.btlab.fdcalculator.service;
+
+import com.btlab.fdcalculator.model.domain.CalculationRecord;
+
+import java.util.Map;
+import java.util.Optional;
+
+public interface CalculationAuditService {
+    /**
+     * Whether quotes are persisted write-behind (fd.audit.write-behind.enabled)
+     */
+    boolean writeBehindEnabled();
+
+    /**
+     * Assign the record its ids and queue it for the background writer. If the queue stays
+     * full for the enqueue timeout, the record is written on the caller's thread instead.
+     * @return The record with calcId and resultId filled in
+     */
+    CalculationRecord submit(CalculationRecord record);
+
+    /**
+     * Get a submitted record that has not been written yet
+     */
+    Optional<CalculationRecord> pending(Long calcId);
+
+    /**
+     * Queue depth and writer counters
+     */
+    Map<String, Object> stats();
+}
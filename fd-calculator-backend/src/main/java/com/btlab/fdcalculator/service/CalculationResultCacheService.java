@@ -0,0 +1,34 @@
+package com.btlab.fdcalculator.service;
+
+import com.btlab.fdcalculator.model.dto.FDCalculationResponse;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+public interface CalculationResultCacheService {
+    /**
+     * The cached quote for a calc id, if this node holds it
+     */
+    Optional<FDCalculationResponse> get(Long calcId);
+
+    /**
+     * Cache a quote that has been stored (or submitted for write-behind)
+     */
+    void put(FDCalculationResponse response);
+
+    /**
+     * Drop quotes whose rows will not be stored after all
+     */
+    void evict(Collection<Long> calcIds);
+
+    /**
+     * Drop every cached quote, e.g. after stored quotes were deleted
+     */
+    void clear();
+
+    /**
+     * Size against the memory budget and hit counters
+     */
+    Map<String, Object> stats();
+}
@@ -0,0 +1,28 @@
+package com.btlab.fdcalculator.service;
+
+import java.util.Map;
+
+public interface CalculationRetentionService {
+    /**
+     * Whether the nightly retention run is on (fd.retention.enabled)
+     */
+    boolean enabled();
+
+    /**
+     * Create the partitions of the current and next month ahead of their first quote,
+     * when partitioned storage is on
+     */
+    void createUpcomingPartitions();
+
+    /**
+     * Archive every monthly partition older than the retention horizon to a compressed file
+     * and drop its table. A partition whose row count changed while it was archived is kept.
+     * @return Archived and skipped partitions of this run
+     */
+    Map<String, Object> run();
+
+    /**
+     * Partitions with their row counts, the horizon and the last run
+     */
+    Map<String, Object> stats();
+}
@@ -0,0 +1,27 @@
+package com.btlab.fdcalculator.service;
+
+import com.btlab.fdcalculator.model.domain.CategoryAliasIndex;
+import com.btlab.fdcalculator.model.dto.ProductRuleDTO;
+
+import java.util.Collection;
+
+public interface CategoryIndexService {
+    /**
+     * Get the current category alias index, loading the alias table on first use
+     */
+    CategoryAliasIndex index();
+
+    /**
+     * Re-read the alias table and swap in a rebuilt index, keeping the rule code prefixes
+     * learned from synced rules
+     * @throws IllegalArgumentException if the alias table cannot be read
+     */
+    CategoryAliasIndex reload();
+
+    /**
+     * Add the rule code prefixes of a product's rules that the alias table does not know,
+     * so new categories resolve without a restart
+     * @param productCode The product code (e.g., "FD001")
+     */
+    void learn(String productCode, Collection<ProductRuleDTO> rules);
+}
@@ -1,11 +1,68 @@
 package com.btlab.fdcalculator.service;
 
+import com.btlab.fdcalculator.model.dto.CalculationExportRow;
+import com.btlab.fdcalculator.model.dto.CalculationHistoryPage;
+import com.btlab.fdcalculator.model.dto.FDBatchCalculationResponse;
 import com.btlab.fdcalculator.model.dto.FDCalculationRequest;
 import com.btlab.fdcalculator.model.dto.FDCalculationResponse;
+import com.btlab.fdcalculator.model.dto.FDMaturitySeriesRequest;
+import com.btlab.fdcalculator.model.dto.FDMaturitySeriesResponse;
+import com.btlab.fdcalculator.model.dto.PayoutScheduleEvent;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
 
 public interface FDCalculatorService {
     FDCalculationResponse calculate(FDCalculationRequest request);
     FDCalculationResponse getByCalcId(Long calcId);
+
+    /**
+     * Calculate and save many quotes in one call. Pricing is resolved once per product code,
+     * the math runs in parallel and all rows are written with JDBC batch inserts.
+     * Invalid requests, and requests for products whose pricing is unavailable, are reported per
+     * item and do not fail the rest of the batch.
+     * @throws com.btlab.fdcalculator.exception.PricingUnavailableException if the Product & Pricing API
+     *         is unavailable and no product of the batch could be priced
+     */
+    FDBatchCalculationResponse calculateBatch(List<FDCalculationRequest> requests);
+
+    /**
+     * Dated payout and compounding events of a non-cumulative FD over its whole tenure.
+     * The request is priced and validated like calculate() but nothing is saved.
+     * Events are generated lazily as the iterator is consumed.
+     */
+    Iterator<PayoutScheduleEvent> payoutSchedule(FDCalculationRequest request);
+
+    /**
+     * Cumulative maturity value for every tenure in a month range, for the base rate and for
+     * each requested category. Computed in memory from the pricing snapshot; nothing is saved.
+     */
+    FDMaturitySeriesResponse maturitySeries(FDMaturitySeriesRequest request);
+
+    /**
+     * One page of saved calculations, newest first, optionally filtered
+     * @param from   Requested at or after (inclusive), or null
+     * @param to     Requested before (exclusive), or null
+     * @param cursor next_cursor of the previous page, or null for the first page
+     * @param limit  Page size, or null for the default
+     * @throws IllegalArgumentException on an invalid cursor, range or page size
+     */
+    CalculationHistoryPage history(String productCode, LocalDateTime from, LocalDateTime to, String category,
+                                   String cursor, Integer limit);
+
+    /**
+     * Every saved calculation matching the filters, for a full export. The filters are validated
+     * here; rows are only read when the returned export is written, one at a time.
+     * @throws IllegalArgumentException on an invalid range
+     */
+    HistoryExport exportHistory(String productCode, LocalDateTime from, LocalDateTime to, String category);
+
+    @FunctionalInterface
+    interface HistoryExport {
+        /** Read the matching rows through a database cursor and pass each to sink as it arrives */
+        void writeTo(Consumer<CalculationExportRow> sink);
+    }
 }
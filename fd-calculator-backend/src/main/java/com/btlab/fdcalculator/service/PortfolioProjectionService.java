@@ -0,0 +1,15 @@
+package com.btlab.fdcalculator.service;
+
+import com.btlab.fdcalculator.model.dto.PortfolioProjectionResponse;
+
+import java.time.LocalDate;
+
+public interface PortfolioProjectionService {
+
+    /**
+     * Project principal and interest outflows of the deposit book between two dates
+     * (inclusive), aggregated by DAY, WEEK or MONTH bucket, for deposits in one currency.
+     * The book is loaded on first use and kept in memory until reloadBook is set.
+     */
+    PortfolioProjectionResponse project(LocalDate from, LocalDate to, String bucket, String currencyCode, boolean reloadBook);
+}
@@ -0,0 +1,23 @@
+package com.btlab.fdcalculator.service;
+
+import com.btlab.fdcalculator.model.domain.ProductPricingSnapshot;
+
+public interface PricingSnapshotService {
+    /**
+     * Get the current pricing snapshot for a product, building it on first use
+     * @param productCode The product code (e.g., "FD001")
+     */
+    ProductPricingSnapshot getSnapshot(String productCode);
+
+    /**
+     * Rebuild the snapshot for a product from the Product & Pricing API and swap it in. The product's
+     * cached API responses are dropped first, so the rebuild sees the current rates and rules.
+     * If the rebuild fails, the previous snapshot is kept.
+     */
+    ProductPricingSnapshot refresh(String productCode);
+
+    /**
+     * Rebuild the snapshots of all products loaded so far
+     */
+    void refreshAll();
+}
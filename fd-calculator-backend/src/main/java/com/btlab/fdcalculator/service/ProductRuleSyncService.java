@@ -1,13 +1,24 @@
 package com.btlab.fdcalculator.service;
 
+import com.btlab.fdcalculator.model.dto.RuleSyncResult;
+
 import java.util.List;
 
 public interface ProductRuleSyncService {
     /**
-     * Sync product rules from the Product & Pricing API to the Category repository
+     * Sync product rules from the Product & Pricing API to the Category repository,
+     * writing only the categories that are new or changed
+     * @param productCode The product code (e.g., "FD001")
+     * @return counts of inserted, updated and unchanged categories
+     */
+    RuleSyncResult syncProductRulesToCategories(String productCode);
+
+    /**
+     * Same as syncProductRulesToCategories, but skip the comparison and writes if the
+     * product's rule set hash is the same as at its last sync by this instance
      * @param productCode The product code (e.g., "FD001")
      */
-    void syncProductRulesToCategories(String productCode);
+    RuleSyncResult syncIfChanged(String productCode);
     
     /**
      * Get all synced categories from the database
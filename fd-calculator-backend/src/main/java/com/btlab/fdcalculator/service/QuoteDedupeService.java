@@ -0,0 +1,45 @@
+package com.btlab.fdcalculator.service;
+
+import com.btlab.fdcalculator.model.domain.ProductPricingSnapshot;
+import com.btlab.fdcalculator.model.dto.FDCalculationRequest;
+import com.btlab.fdcalculator.model.dto.FDCalculationResponse;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+
+public interface QuoteDedupeService {
+    /**
+     * Whether repeated identical quotes are deduplicated (fd.dedupe.enabled)
+     */
+    boolean enabled();
+
+    /**
+     * Content hash of a quote: the request, the rates and rules of the pricing snapshot it is priced
+     * with, the quote date and the current dedupe window. Equal keys mean the quote would come out the same.
+     * @param productCode The product code the request resolves to
+     */
+    String quoteKey(FDCalculationRequest request, String productCode, ProductPricingSnapshot pricing);
+
+    /**
+     * The quote returned for this key earlier in the window, if this node still holds it
+     */
+    Optional<FDCalculationResponse> recent(String quoteKey);
+
+    /**
+     * Calc id of the quote already stored under this key, looked up when an insert was rejected
+     * because a concurrent request or another node stored the same quote first
+     * @param requestTimestamp request time of the rejected quote
+     */
+    Optional<Long> stored(String quoteKey, LocalDateTime requestTimestamp);
+
+    /**
+     * Remember the quote returned for a key until the window ends
+     */
+    void remember(String quoteKey, FDCalculationResponse response);
+
+    /**
+     * Index size and hit counters
+     */
+    Map<String, Object> stats();
+}
@@ -0,0 +1,20 @@
+package com.btlab.fdcalculator.service;
+
+import com.btlab.fdcalculator.model.dto.RuleSyncJobStatus;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface RuleSyncJobService {
+    /**
+     * Start syncing the rules of the given products in the background. If a job is already
+     * running, no new job is started and the running one is returned.
+     * @param productCodes Products to sync; empty for the configured product catalog
+     */
+    RuleSyncJobStatus start(List<String> productCodes);
+
+    /**
+     * Get the progress of a recent job
+     */
+    Optional<RuleSyncJobStatus> status(long jobId);
+}
@@ -0,0 +1,343 @@
+package com.btlab.fdcalculator.service.impl;
+
+import com.btlab.fdcalculator.model.domain.CalculationRecord;
+import com.btlab.fdcalculator.repository.CalculationBatchRepository;
+import com.btlab.fdcalculator.service.CalculationAuditService;
+import com.btlab.fdcalculator.service.CalculationResultCacheService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Write-behind persistence of calculation records.
+ *
+ * Quotes get their ids up front and go onto a bounded queue; one writer thread drains it
+ * and inserts whatever has accumulated (up to batch-size rows) with JDBC batch inserts, so
+ * under load many quotes share one round trip and the quote path does not wait on the
+ * database. When the queue is full, callers wait up to the enqueue timeout and then write
+ * their own record synchronously, which slows producers down to what the database sustains
+ * without dropping records. On shutdown the queue is drained before the datasource closes.
+ *
+ * Records that have been queued are never dropped: their calc ids are already with the callers.
+ * While the database is unavailable (a transient failure, see transientFailure) the writer retries
+ * the batch with growing backoff; the queue fills meanwhile and callers fall back to writing
+ * themselves. A batch that fails for any other reason (a constraint, a bad value, a malformed
+ * record) would fail again on retry, so it is written row by row and only the offending rows are
+ * set aside, appended as NDJSON to reject-file for inspection and replay. Records still unwritten when the
+ * shutdown timeout runs out go to the same file.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CalculationAuditServiceImpl implements CalculationAuditService {
+
+    private static final long INITIAL_BACKOFF_MS = 200;
+    private static final long MAX_BACKOFF_MS = 30_000;
+    // Time the writer gets after the shutdown timeout to append what it could not write to the reject file
+    private static final long REJECT_GRACE_MS = 5_000;
+
+    private final CalculationBatchRepository calculationBatchRepository;
+    private final CalculationResultCacheService calculationResultCacheService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${fd.audit.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${fd.audit.write-behind.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${fd.audit.write-behind.batch-size:500}")
+    private int batchSize;
+
+    @Value("${fd.audit.write-behind.enqueue-timeout-ms:50}")
+    private long enqueueTimeoutMs;
+
+    @Value("${fd.audit.write-behind.shutdown-timeout-ms:30000}")
+    private long shutdownTimeoutMs;
+
+    @Value("${fd.audit.write-behind.reject-file:audit/rejected-calculations.ndjson}")
+    private String rejectFile;
+
+    private BlockingQueue<CalculationRecord> queue;
+    // Submitted records until they are written, so they can be read back right away
+    private final Map<Long, CalculationRecord> pendingByCalcId = new ConcurrentHashMap<>();
+    private Thread writer;
+    // Producers check accepting and enqueue under the read lock, so none can enqueue once shutdown has cleared it
+    private final ReadWriteLock acceptingLock = new ReentrantReadWriteLock();
+    private volatile boolean accepting;
+    // Set on shutdown: from giveUpAtNanos on, records that cannot be written go to the reject file
+    private volatile boolean stopping;
+    private volatile long giveUpAtNanos;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong synchronousWrites = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong writeNanos = new AtomicLong();
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        accepting = true;
+        writer = new Thread(this::drainLoop, "calc-audit-writer");
+        writer.start();
+        log.info("Write-behind calculation audit enabled (queue capacity {}, batch size {})", queueCapacity, batchSize);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (writer == null) {
+            return;
+        }
+        // The writer stops retrying at the timeout and sets aside what is left
+        giveUpAtNanos = System.nanoTime() + shutdownTimeoutMs * 1_000_000;
+        stopping = true;
+        acceptingLock.writeLock().lock();
+        try {
+            accepting = false;
+        } finally {
+            acceptingLock.writeLock().unlock();
+        }
+        try {
+            writer.join(shutdownTimeoutMs + REJECT_GRACE_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) {
+            log.error("Calculation audit writer did not finish within {} ms; {} records still queued",
+                shutdownTimeoutMs + REJECT_GRACE_MS, queue.size());
+            return;
+        }
+        // Only left if the writer thread ended early (interrupted)
+        List<CalculationRecord> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        if (!rest.isEmpty()) {
+            write(rest);
+        }
+        log.info("Calculation audit writer stopped: {} written, {} failed", written.get(), failed.get());
+    }
+
+    @Override
+    public boolean writeBehindEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public CalculationRecord submit(CalculationRecord record) {
+        CalculationRecord assigned = calculationBatchRepository.assignIds(record);
+        submitted.incrementAndGet();
+        acceptingLock.readLock().lock();
+        try {
+            if (accepting) {
+                pendingByCalcId.put(assigned.calcId(), assigned);
+                try {
+                    if (queue.offer(assigned, enqueueTimeoutMs, TimeUnit.MILLISECONDS)) {
+                        return assigned;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                pendingByCalcId.remove(assigned.calcId());
+            }
+        } finally {
+            acceptingLock.readLock().unlock();
+        }
+        // Queue full (or shutting down): write on the caller's thread
+        synchronousWrites.incrementAndGet();
+        calculationBatchRepository.insertAll(List.of(assigned));
+        written.incrementAndGet();
+        return assigned;
+    }
+
+    @Override
+    public Optional<CalculationRecord> pending(Long calcId) {
+        return Optional.ofNullable(pendingByCalcId.get(calcId));
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long batchCount = batches.get();
+        stats.put("enabled", enabled);
+        stats.put("queued", queue != null ? queue.size() : 0);
+        stats.put("queue_capacity", enabled ? queueCapacity : 0);
+        stats.put("submitted", submitted.get());
+        stats.put("written", written.get());
+        stats.put("synchronous_writes", synchronousWrites.get());
+        stats.put("failed", failed.get());
+        stats.put("retries", retries.get());
+        stats.put("reject_file", Path.of(rejectFile).toAbsolutePath().toString());
+        stats.put("batches", batchCount);
+        stats.put("average_batch_rows", batchCount == 0 ? 0 : (double) (written.get() - synchronousWrites.get()) / batchCount);
+        stats.put("average_batch_millis", batchCount == 0 ? 0 : writeNanos.get() / 1_000_000.0 / batchCount);
+        return stats;
+    }
+
+    private void drainLoop() {
+        List<CalculationRecord> batch = new ArrayList<>(batchSize);
+        while (accepting || !queue.isEmpty()) {
+            try {
+                CalculationRecord first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                log.warn("Calculation audit writer interrupted; draining on shutdown");
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<CalculationRecord> batch) {
+        long start = System.nanoTime();
+        List<CalculationRecord> remaining = batch;
+        long backoffMs = INITIAL_BACKOFF_MS;
+        while (!remaining.isEmpty()) {
+            try {
+                calculationBatchRepository.insertAll(remaining);
+                written.addAndGet(remaining.size());
+                batches.incrementAndGet();
+                writeNanos.addAndGet(System.nanoTime() - start);
+                break;
+            } catch (RuntimeException e) {
+                if (!transientFailure(e)) {
+                    // One bad row fails the whole batch: write row by row so only the rejected rows are set aside
+                    log.warn("Writing {} calculation records failed; writing them one by one: {}",
+                        remaining.size(), e.getMessage());
+                    remaining = writeOneByOne(remaining);
+                    continue;
+                }
+                long untilGiveUpMs = stopping ? (giveUpAtNanos - System.nanoTime()) / 1_000_000 : Long.MAX_VALUE;
+                if (untilGiveUpMs <= 0) {
+                    reject(remaining, "database unavailable at shutdown: " + e.getMessage());
+                    break;
+                }
+                // Database unavailable: retry; the queue fills meanwhile and holds producers back
+                retries.incrementAndGet();
+                log.warn("Writing {} calculation records failed; retrying in {} ms: {}",
+                    remaining.size(), backoffMs, e.getMessage());
+                if (!sleep(Math.min(backoffMs, untilGiveUpMs))) {
+                    reject(remaining, "writer interrupted: " + e.getMessage());
+                    break;
+                }
+                backoffMs = Math.min(backoffMs * 2, MAX_BACKOFF_MS);
+            }
+        }
+        for (CalculationRecord record : batch) {
+            pendingByCalcId.remove(record.calcId());
+        }
+    }
+
+    /**
+     * Insert each record on its own. Records failing for good are set aside; those failing
+     * transiently are returned to be retried.
+     */
+    private List<CalculationRecord> writeOneByOne(List<CalculationRecord> records) {
+        List<CalculationRecord> unwritten = new ArrayList<>();
+        for (CalculationRecord record : records) {
+            try {
+                calculationBatchRepository.insertAll(List.of(record));
+                written.incrementAndGet();
+            } catch (DuplicateKeyException e) {
+                // Committed by an earlier attempt whose outcome was lost
+                written.incrementAndGet();
+            } catch (RuntimeException e) {
+                if (transientFailure(e)) {
+                    unwritten.add(record);
+                } else {
+                    reject(List.of(record), e.toString());
+                }
+            }
+        }
+        return unwritten;
+    }
+
+    /**
+     * Whether a write may succeed when retried: the database, a connection to it (e.g.
+     * CannotGetJdbcConnectionException) or a transaction could not be had for now, a lock or
+     * query timed out, or the connection was lost. Anything else fails again on every retry.
+     */
+    private static boolean transientFailure(RuntimeException e) {
+        return e instanceof TransientDataAccessException
+            || e instanceof RecoverableDataAccessException
+            || e instanceof DataAccessResourceFailureException
+            || e instanceof CannotCreateTransactionException;
+    }
+
+    /**
+     * Append records that cannot be written to the reject file, one JSON object per line
+     */
+    private void reject(List<CalculationRecord> records, String reason) {
+        failed.addAndGet(records.size());
+        // Not stored, so they must not be served from the cache as if they were
+        calculationResultCacheService.evict(records.stream().map(CalculationRecord::calcId).toList());
+        Path file = Path.of(rejectFile);
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                for (CalculationRecord record : records) {
+                    out.write(objectMapper.writeValueAsString(record));
+                    out.newLine();
+                }
+            }
+            log.error("Could not write {} calculation records (calc ids {}..{}); appended them to {}: {}",
+                records.size(), records.get(0).calcId(), records.get(records.size() - 1).calcId(), file, reason);
+        } catch (IOException e) {
+            log.error("Could not write {} calculation records (calc ids {}..{}) to the database ({}) or to {}: {}",
+                records.size(), records.get(0).calcId(), records.get(records.size() - 1).calcId(), reason, file,
+                e.getMessage(), e);
+        }
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.btlab.fdcalculator.service.impl;
+
+import com.btlab.fdcalculator.model.dto.FDCalculationResponse;
+import com.btlab.fdcalculator.service.CalculationResultCacheService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * In-process cache of stored quotes by calc id.
+ *
+ * A quote never changes once stored, so the response is cached when it is written and lookups
+ * of it are answered without a query. The cache is bounded by an estimate of the heap its
+ * entries take (fd.result-cache.max-bytes) with Caffeine's W-TinyLFU eviction, so frequently
+ * polled quotes stay while one-off quotes and batch results make way. Entries also expire after
+ * fd.result-cache.ttl-ms, which bounds how long another node keeps serving quotes that retention
+ * has dropped.
+ */
+@Service
+public class CalculationResultCacheServiceImpl implements CalculationResultCacheService {
+
+    // Cache node, key, response record, boxed ids and five BigDecimals
+    private static final int ENTRY_OVERHEAD_BYTES = 400;
+    private static final int STRING_OVERHEAD_BYTES = 48;
+
+    @Value("${fd.result-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${fd.result-cache.max-bytes:67108864}")
+    private long maxBytes;
+
+    @Value("${fd.result-cache.ttl-ms:86400000}")
+    private long ttlMs;
+
+    private Cache<Long, FDCalculationResponse> responses;
+
+    @PostConstruct
+    void init() {
+        responses = Caffeine.newBuilder()
+            .maximumWeight(maxBytes)
+            .weigher((Long calcId, FDCalculationResponse response) -> estimatedBytes(response))
+            .expireAfterWrite(Duration.ofMillis(ttlMs))
+            .recordStats()
+            .build();
+    }
+
+    @Override
+    public Optional<FDCalculationResponse> get(Long calcId) {
+        if (!enabled || calcId == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(responses.getIfPresent(calcId));
+    }
+
+    @Override
+    public void put(FDCalculationResponse response) {
+        if (enabled && response.calc_id() != null) {
+            responses.put(response.calc_id(), response);
+        }
+    }
+
+    @Override
+    public void evict(Collection<Long> calcIds) {
+        responses.invalidateAll(calcIds);
+    }
+
+    @Override
+    public void clear() {
+        responses.invalidateAll();
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        CacheStats s = responses.stats();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("size", responses.estimatedSize());
+        stats.put("estimated_bytes", responses.policy().eviction()
+            .map(eviction -> eviction.weightedSize().orElse(0L))
+            .orElse(0L));
+        stats.put("max_bytes", maxBytes);
+        stats.put("hits", s.hitCount());
+        stats.put("misses", s.missCount());
+        stats.put("hit_rate", s.hitRate());
+        stats.put("evictions", s.evictionCount());
+        stats.put("evicted_bytes", s.evictionWeight());
+        return stats;
+    }
+
+    /**
+     * Approximate heap taken by one entry; strings are counted at one byte per character
+     */
+    private static int estimatedBytes(FDCalculationResponse response) {
+        return ENTRY_OVERHEAD_BYTES
+            + stringBytes(response.maturity_date())
+            + stringBytes(response.payout_freq())
+            + stringBytes(response.category1_id())
+            + stringBytes(response.category2_id())
+            + stringBytes(response.product_code())
+            + stringBytes(response.tenure_unit());
+    }
+
+    private static int stringBytes(String value) {
+        return value == null ? 0 : STRING_OVERHEAD_BYTES + value.length();
+    }
+}
@@ -0,0 +1,265 @@
+package com.btlab.fdcalculator.service.impl;
+
+import com.btlab.fdcalculator.model.dto.CalculationExportRow;
+import com.btlab.fdcalculator.repository.CalculationBatchRepository;
+import com.btlab.fdcalculator.repository.CalculationHistoryRepository;
+import com.btlab.fdcalculator.repository.CalculationPartitionRepository;
+import com.btlab.fdcalculator.service.CalculationResultCacheService;
+import com.btlab.fdcalculator.service.CalculationRetentionService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Ages calculation partitions out once they are older than fd.retention.keep-months.
+ *
+ * An expired partition is first renamed out of the write path (see CalculationPartitionRepository),
+ * so its row count cannot change while it is archived. It is then streamed from a read-only cursor
+ * into a gzip NDJSON file (the export row format) under fd.retention.archive-dir, written as a .part
+ * file, synced to disk and renamed, and the directory is synced so the rename survives a crash.
+ * Only then is its table dropped, which takes the same time however many rows it held and leaves no
+ * deleted rows or index entries behind. A partition renamed by a run that failed half-way is
+ * archived by the next run. Rows in the unpartitioned tables are not aged out.
+ *
+ * With several nodes, enable the nightly run on one of them.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CalculationRetentionServiceImpl implements CalculationRetentionService {
+
+    private static final String ARCHIVE_SUFFIX = ".ndjson.gz";
+
+    private final CalculationPartitionRepository partitionRepository;
+    private final CalculationHistoryRepository historyRepository;
+    private final CalculationBatchRepository calculationBatchRepository;
+    private final CalculationResultCacheService calculationResultCacheService;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+
+    @Value("${fd.retention.enabled:false}")
+    private boolean enabled;
+
+    @Value("${fd.retention.keep-months:24}")
+    private int keepMonths;
+
+    @Value("${fd.retention.archive-dir:archive/calculations}")
+    private String archiveDir;
+
+    private volatile Map<String, Object> lastRun;
+
+    @PostConstruct
+    void init() {
+        if (keepMonths < 1) {
+            throw new IllegalStateException("fd.retention.keep-months must be at least 1");
+        }
+        createUpcomingPartitions();
+    }
+
+    @Override
+    public boolean enabled() {
+        return enabled;
+    }
+
+    @Override
+    public void createUpcomingPartitions() {
+        if (calculationBatchRepository.partitionedStorage()) {
+            YearMonth current = YearMonth.now();
+            partitionRepository.ensure(current);
+            partitionRepository.ensure(current.plusMonths(1));
+        }
+    }
+
+    @Override
+    public synchronized Map<String, Object> run() {
+        partitionRepository.refresh();
+        YearMonth oldestKept = oldestKept();
+        List<Map<String, Object>> archived = new ArrayList<>();
+        List<Map<String, Object>> skipped = new ArrayList<>();
+
+        for (YearMonth month : partitionRepository.months().headSet(oldestKept, false)) {
+            if (partitionRepository.archivingMonths().contains(month)) {
+                // An earlier partition of the month is still to be archived; this one follows next run
+                continue;
+            }
+            try {
+                partitionRepository.detach(month);
+            } catch (RuntimeException e) {
+                log.error("Renaming {} for archiving failed; the partition is kept",
+                    CalculationPartitionRepository.tableName(month), e);
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("partition", CalculationPartitionRepository.tableName(month));
+                entry.put("reason", e.getMessage());
+                skipped.add(entry);
+            }
+        }
+
+        for (YearMonth month : partitionRepository.archivingMonths()) {
+            String table = CalculationPartitionRepository.archivingTableName(month);
+            String archiveName = CalculationPartitionRepository.tableName(month) + ARCHIVE_SUFFIX;
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("partition", table);
+            Path part = archiveDirectory().resolve(archiveName + ".part");
+            try {
+                long rows = archive(table, part);
+                long stored = partitionRepository.countRows(table);
+                if (stored != rows) {
+                    // Nothing writes to a renamed partition, so the export itself is incomplete
+                    Files.deleteIfExists(part);
+                    entry.put("reason", String.format("%d rows archived but %d stored", rows, stored));
+                    skipped.add(entry);
+                    continue;
+                }
+                Path file = freeName(archiveDirectory().resolve(archiveName));
+                Files.move(part, file, StandardCopyOption.ATOMIC_MOVE);
+                syncDirectory(file.getParent());
+                partitionRepository.dropArchiving(month);
+                entry.put("rows", rows);
+                entry.put("file", file.toString());
+                archived.add(entry);
+                log.info("Archived {} rows of {} to {}", rows, table, file);
+            } catch (IOException | RuntimeException e) {
+                log.error("Archiving {} failed; the partition is kept", table, e);
+                deleteQuietly(part);
+                entry.put("reason", e.getMessage());
+                skipped.add(entry);
+            }
+        }
+
+        if (!archived.isEmpty()) {
+            // Cached quotes carry no month, so the cache is emptied rather than serve dropped quotes
+            calculationResultCacheService.clear();
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("ran_at", LocalDateTime.now());
+        result.put("oldest_kept_month", oldestKept.toString());
+        result.put("archived", archived);
+        result.put("skipped", skipped);
+        lastRun = result;
+        return result;
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        List<Map<String, Object>> partitions = new ArrayList<>();
+        for (YearMonth month : partitionRepository.months()) {
+            Map<String, Object> partition = new LinkedHashMap<>();
+            partition.put("month", month.toString());
+            partition.put("table", CalculationPartitionRepository.tableName(month));
+            partition.put("rows", partitionRepository.countRows(CalculationPartitionRepository.tableName(month)));
+            partitions.add(partition);
+        }
+        List<String> archiving = partitionRepository.archivingMonths().stream()
+            .map(CalculationPartitionRepository::archivingTableName)
+            .toList();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("partitioned_storage", calculationBatchRepository.partitionedStorage());
+        stats.put("enabled", enabled);
+        stats.put("keep_months", keepMonths);
+        stats.put("oldest_kept_month", oldestKept().toString());
+        stats.put("archive_dir", archiveDirectory().toAbsolutePath().toString());
+        stats.put("partitions", partitions);
+        stats.put("archiving", archiving);
+        stats.put("last_run", lastRun);
+        return stats;
+    }
+
+    private YearMonth oldestKept() {
+        return YearMonth.now().minusMonths(keepMonths - 1L);
+    }
+
+    private Path archiveDirectory() {
+        return Path.of(archiveDir);
+    }
+
+    /**
+     * Write the partition table's rows to file as gzip NDJSON and return how many were written
+     */
+    private long archive(String table, Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        ObjectWriter writer = objectMapper.writerFor(CalculationExportRow.class)
+            .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        long[] rows = new long[1];
+        try (FileOutputStream target = new FileOutputStream(file.toFile());
+             GZIPOutputStream out = new GZIPOutputStream(new BufferedOutputStream(target, 1 << 16), 1 << 16)) {
+            readOnly.executeWithoutResult(status -> historyRepository.exportPartition(table, row -> {
+                try {
+                    writer.writeValue(out, row);
+                    out.write('\n');
+                    rows[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+            out.finish();
+            out.flush();
+            // The table is dropped next, so the archive must be on disk first
+            target.getFD().sync();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return rows[0];
+    }
+
+    /**
+     * Flush the directory entry of a file just renamed into dir; the table is dropped next
+     */
+    private static void syncDirectory(Path dir) throws IOException {
+        if (File.separatorChar == '\\') {
+            // Directories cannot be opened for syncing on Windows
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete {}", file, e);
+        }
+    }
+
+    /**
+     * file, or file with a counter if a partition of the same month was archived before
+     */
+    private static Path freeName(Path file) {
+        String name = file.getFileName().toString();
+        String base = name.substring(0, name.length() - ARCHIVE_SUFFIX.length());
+        Path candidate = file;
+        for (int n = 2; Files.exists(candidate); n++) {
+            candidate = file.resolveSibling(base + "." + n + ARCHIVE_SUFFIX);
+        }
+        return candidate;
+    }
+}
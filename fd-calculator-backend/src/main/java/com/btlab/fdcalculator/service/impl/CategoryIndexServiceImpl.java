@@ -0,0 +1,121 @@
+package com.btlab.fdcalculator.service.impl;
+
+import com.btlab.fdcalculator.model.domain.CategoryAliasIndex;
+import com.btlab.fdcalculator.model.domain.CategoryAliasIndex.Bound;
+import com.btlab.fdcalculator.model.domain.CategoryAliasIndex.CategoryType;
+import com.btlab.fdcalculator.model.dto.ProductRuleDTO;
+import com.btlab.fdcalculator.service.CategoryIndexService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CategoryIndexServiceImpl implements CategoryIndexService {
+
+    private final ResourceLoader resourceLoader;
+    private final ObjectMapper objectMapper;
+
+    @Value("${fd.categories.alias-file:classpath:category-aliases.json}")
+    private String aliasFile;
+
+    // Types learned from synced rules; the alias table wins where both define a prefix
+    private final Map<String, CategoryType> learnedTypes = new ConcurrentHashMap<>();
+    private volatile AliasTable aliasTable;
+    private volatile CategoryAliasIndex index;
+
+    /**
+     * Build the index on the startup thread. Loaded lazily from a fork-join worker (parallel
+     * batch calculations), a classpath: alias file is not visible to the worker's class loader
+     * in the packaged jar. A missing or unreadable alias file fails startup: without it every
+     * quote would silently be priced without category benefits.
+     */
+    @PostConstruct
+    void load() {
+        reload();
+    }
+
+    @Override
+    public CategoryAliasIndex index() {
+        return index;
+    }
+
+    @Override
+    public synchronized CategoryAliasIndex reload() {
+        // Read first: if the file cannot be read the running index stays in place
+        aliasTable = readAliasTable();
+        return rebuild();
+    }
+
+    @Override
+    public void learn(String productCode, Collection<ProductRuleDTO> rules) {
+        String suffix = productCode.length() >= 3 ? productCode.substring(productCode.length() - 3) : productCode;
+        CategoryAliasIndex current = index();
+        boolean learned = false;
+        for (ProductRuleDTO rule : rules) {
+            String ruleCode = rule.ruleCode().toUpperCase();
+            if (!ruleCode.endsWith(suffix) || ruleCode.length() == suffix.length()) {
+                continue;
+            }
+            String prefix = ruleCode.substring(0, ruleCode.length() - suffix.length());
+            CategoryType known = current.categoryType(ruleCode);
+            if (known != null && known.prefix().equals(prefix)) {
+                continue;
+            }
+            learnedTypes.put(prefix, new CategoryType(prefix, rule.ruleName(), "EXACT".equalsIgnoreCase(rule.validationType()), null));
+            log.info("Learned category type {} ({}) from rule {}", prefix, rule.ruleName(), rule.ruleCode());
+            learned = true;
+        }
+        if (learned) {
+            synchronized (this) {
+                rebuild();
+            }
+        }
+    }
+
+    private CategoryAliasIndex rebuild() {
+        AliasTable table = aliasTable;
+        Map<String, CategoryType> types = new HashMap<>(learnedTypes);
+        table.types().forEach((prefix, type) -> types.put(prefix.toUpperCase(),
+            new CategoryType(prefix.toUpperCase(), type.name(), type.benefit(), type.bound())));
+        Map<String, String> aliases = new HashMap<>();
+        table.aliases().forEach((alias, prefix) -> aliases.put(alias.toUpperCase(), prefix.toUpperCase()));
+
+        CategoryAliasIndex rebuilt = new CategoryAliasIndex(types, aliases);
+        index = rebuilt;
+        log.info("Category alias index built: {} types, {} aliases", rebuilt.typeCount(), rebuilt.aliasCount());
+        return rebuilt;
+    }
+
+    private AliasTable readAliasTable() {
+        try (InputStream in = resourceLoader.getResource(aliasFile).getInputStream()) {
+            AliasTable table = objectMapper.readValue(in, AliasTable.class);
+            return new AliasTable(
+                table.types() != null ? table.types() : Map.of(),
+                table.aliases() != null ? table.aliases() : Map.of());
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Could not load category aliases from " + aliasFile + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Contents of the alias file: category types by rule code prefix, and rule code prefix by alias
+     */
+    private record AliasTable(Map<String, TypeEntry> types, Map<String, String> aliases) {
+    }
+
+    private record TypeEntry(String name, boolean benefit, Bound bound) {
+    }
+}
@@ -1,46 +1,349 @@
 package com.btlab.fdcalculator.service.impl;
 
-import com.btlab.fdcalculator.client.PricingApiClient;
+import com.btlab.fdcalculator.exception.PricingUnavailableException;
+import com.btlab.fdcalculator.model.domain.CalculationRecord;
+import com.btlab.fdcalculator.model.domain.PayoutPlan;
+import com.btlab.fdcalculator.model.domain.ProductPricingSnapshot;
+import com.btlab.fdcalculator.model.domain.ProductRuleSet;
+import com.btlab.fdcalculator.model.dto.CalculationHistoryPage;
+import com.btlab.fdcalculator.model.dto.FDBatchCalculationResponse;
 import com.btlab.fdcalculator.model.dto.FDCalculationRequest;
 import com.btlab.fdcalculator.model.dto.FDCalculationResponse;
+import com.btlab.fdcalculator.model.dto.FDMaturitySeriesRequest;
+import com.btlab.fdcalculator.model.dto.FDMaturitySeriesResponse;
+import com.btlab.fdcalculator.model.dto.PayoutScheduleEvent;
 import com.btlab.fdcalculator.model.dto.ProductDetailsDTO;
-import com.btlab.fdcalculator.model.dto.ProductRuleDTO;
+import com.btlab.fdcalculator.model.dto.ProductInterestDTO;
 import com.btlab.fdcalculator.model.entity.*;
 import com.btlab.fdcalculator.repository.*;
+import com.btlab.fdcalculator.service.CalculationAuditService;
+import com.btlab.fdcalculator.service.CalculationResultCacheService;
+import com.btlab.fdcalculator.service.CategoryIndexService;
 import com.btlab.fdcalculator.service.FDCalculatorService;
+import com.btlab.fdcalculator.service.PricingSnapshotService;
 import com.btlab.fdcalculator.service.ProductRuleValidationService;
+import com.btlab.fdcalculator.service.QuoteDedupeService;
 import com.btlab.fdcalculator.service.RateCacheService;
+import com.btlab.fdcalculator.util.CompoundFactorTable;
+import com.btlab.fdcalculator.util.CompoundInterestKernel;
 import com.btlab.fdcalculator.util.CurrencyUtil;
-import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.math.MathContext;
 import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.IntStream;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class FDCalculatorServiceImpl implements FDCalculatorService {
 
+    // Scale of the amount and rate columns of the calculation tables
+    private static final int STORED_SCALE = 4;
+
     private final FDCalculationInputRepository inputRepo;
     private final FDCalculationResultRepository resultRepo;
+    private final FDCalculationRecordRepository recordRepo;
+    private final CalculationHistoryRepository historyRepo;
+    private final CalculationPartitionRepository partitionRepo;
     private final RateCacheService rateCacheService;
     private final ProductRuleValidationService productRuleValidationService;
-    private final PricingApiClient pricingApiClient;
+    private final PricingSnapshotService pricingSnapshotService;
+    private final CalculationBatchRepository calculationBatchRepository;
+    private final CompoundFactorTable compoundFactorTable;
+    private final CategoryIndexService categoryIndexService;
+    private final CalculationAuditService calculationAuditService;
+    private final QuoteDedupeService quoteDedupeService;
+    private final CalculationResultCacheService calculationResultCacheService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${fd.batch.max-size:10000}")
+    private int maxBatchSize;
+
+    @Value("${fd.series.max-tenure-months:360}")
+    private int maxSeriesTenureMonths;
+
+    @Value("${fd.history.default-page-size:50}")
+    private int defaultHistoryPageSize;
+
+    @Value("${fd.history.max-page-size:500}")
+    private int maxHistoryPageSize;
 
     @Override
-    @Transactional
     public FDCalculationResponse calculate(FDCalculationRequest req) {
+        String productCode = resolveProductCode(req);
+        
+        // Rates, rules and product details all come from the in-memory pricing snapshot. Pricing
+        // (which may call the Product & Pricing API) and the math run outside any transaction.
+        ProductPricingSnapshot pricing = pricingSnapshotService.getSnapshot(productCode);
+        if (!quoteDedupeService.enabled()) {
+            return store(compute(req, pricing));
+        }
+
+        // A repeat of a quote made earlier in the dedupe window returns that quote
+        String quoteKey = quoteDedupeService.quoteKey(req, productCode, pricing);
+        Optional<FDCalculationResponse> recent = quoteDedupeService.recent(quoteKey);
+        if (recent.isPresent()) {
+            return recent.get();
+        }
+        CalculationRecord record = compute(req, pricing).toBuilder().quoteKey(quoteKey).build();
+        FDCalculationResponse response;
+        try {
+            response = store(record);
+        } catch (DataIntegrityViolationException e) {
+            // The same quote was stored meanwhile by a concurrent request or another node
+            Long existing = quoteDedupeService.stored(quoteKey, record.requestTimestamp()).orElseThrow(() -> e);
+            response = getByCalcId(existing);
+        }
+        quoteDedupeService.remember(quoteKey, response);
+        return response;
+    }
+
+    private FDCalculationResponse store(CalculationRecord record) {
+        FDCalculationResponse response;
+        if (calculationAuditService.writeBehindEnabled()) {
+            // Ids are assigned now; the rows are written by the background audit writer. The key is
+            // left out so a duplicate from another node cannot fail a whole background batch.
+            response = toResponse(calculationAuditService.submit(record.toBuilder().quoteKey(null).build()));
+        } else if (calculationBatchRepository.singleRowStorage() || calculationBatchRepository.partitionedStorage()) {
+            response = toResponse(calculationBatchRepository.insertAll(List.of(record)).get(0));
+        } else {
+            // Only the inserts hold a connection
+            response = toResponse(transactionTemplate.execute(status -> persist(record)));
+        }
+        // Stored quotes never change, so reads of this one are served from memory from now on
+        calculationResultCacheService.put(asStored(response));
+        return response;
+    }
+
+    private CalculationRecord persist(CalculationRecord record) {
+        FDCalculationInput in = inputRepo.save(FDCalculationInput.builder()
+            .currencyCode(record.currencyCode())
+            .principalAmount(record.principalAmount())
+            .tenureValue(record.tenureValue())
+            .tenureUnit(record.tenureUnit())
+            .interestType(record.interestType())
+            .compoundingFrequency(record.compoundingFrequency())
+            .category1Code(record.category1Code())
+            .category2Code(record.category2Code())
+            .productCode(record.productCode())
+            .requestTimestamp(record.requestTimestamp())
+            .quoteKey(record.quoteKey())
+            .build());
+
+        FDCalculationResult res = resultRepo.save(FDCalculationResult.builder()
+            .calc(in)
+            .maturityValue(record.maturityValue())
+            .maturityDate(record.maturityDate())
+            .apy(record.apy())
+            .effectiveRate(record.effectiveRate())
+            .payoutFreq(record.payoutFreq())
+            .payoutAmount(record.payoutAmount())
+            .build());
+
+        return record.toBuilder()
+            .calcId(in.getCalcId())
+            .resultId(res.getResultId())
+            .build();
+    }
+
+    @Override
+    public FDBatchCalculationResponse calculateBatch(List<FDCalculationRequest> requests) {
+        if (requests.size() > maxBatchSize) {
+            throw new IllegalArgumentException(String.format(
+                "Batch of %d requests exceeds maximum batch size %d", requests.size(), maxBatchSize));
+        }
+
+        // Resolve pricing once per product code rather than once per request
+        Map<String, ProductPricingSnapshot> pricingByProduct = new HashMap<>();
+        Map<String, String> pricingErrors = new HashMap<>();
+        PricingUnavailableException unavailable = null;
+        for (FDCalculationRequest req : requests) {
+            String productCode = resolveProductCode(req);
+            if (pricingByProduct.containsKey(productCode) || pricingErrors.containsKey(productCode)) {
+                continue;
+            }
+            try {
+                pricingByProduct.put(productCode, pricingSnapshotService.getSnapshot(productCode));
+            } catch (Exception e) {
+                log.error("Could not resolve pricing for product {}: {}", productCode, e.getMessage());
+                pricingErrors.put(productCode, "Pricing unavailable for product " + productCode + ": " + e.getMessage());
+                if (e instanceof PricingUnavailableException pricingUnavailable) {
+                    unavailable = pricingUnavailable;
+                }
+            }
+        }
+        if (pricingByProduct.isEmpty() && unavailable != null) {
+            // Nothing can be priced: fail the whole batch as a single quote would, so callers retry it
+            throw unavailable;
+        }
+
+        // Pricing is resolved, so the per-request math is CPU-only and runs across all cores
+        CalculationRecord[] records = new CalculationRecord[requests.size()];
+        String[] errors = new String[requests.size()];
+        IntStream.range(0, requests.size()).parallel().forEach(i -> {
+            FDCalculationRequest req = requests.get(i);
+            String productCode = resolveProductCode(req);
+            ProductPricingSnapshot pricing = pricingByProduct.get(productCode);
+            if (pricing == null) {
+                errors[i] = pricingErrors.get(productCode);
+                return;
+            }
+            try {
+                records[i] = compute(req, pricing);
+            } catch (Exception e) {
+                errors[i] = e.getMessage();
+            }
+        });
+
+        List<CalculationRecord> computed = new ArrayList<>(requests.size());
+        List<FDBatchCalculationResponse.ItemError> itemErrors = new ArrayList<>();
+        for (int i = 0; i < records.length; i++) {
+            if (records[i] != null) {
+                computed.add(records[i]);
+            } else {
+                itemErrors.add(new FDBatchCalculationResponse.ItemError(i, errors[i]));
+            }
+        }
+
+        List<FDCalculationResponse> results = calculationBatchRepository.insertAll(computed).stream()
+            .map(this::toResponse)
+            .toList();
+        results.forEach(result -> calculationResultCacheService.put(asStored(result)));
+        log.info("Batch calculation: {} requests, {} products, {} saved, {} rejected",
+            requests.size(), pricingByProduct.size() + pricingErrors.size(), results.size(), itemErrors.size());
+
+        return new FDBatchCalculationResponse(requests.size(), results.size(), itemErrors.size(), results, itemErrors);
+    }
+
+    @Override
+    public Iterator<PayoutScheduleEvent> payoutSchedule(FDCalculationRequest req) {
+        if (req.cumulative() == null || req.cumulative()) {
+            throw new IllegalArgumentException("Payout schedule is only available for non-cumulative FDs (cumulative=false)");
+        }
+        ProductPricingSnapshot pricing = pricingSnapshotService.getSnapshot(resolveProductCode(req));
+        CalculationRecord record = compute(req, pricing);
+
+        PayoutPlan plan = PayoutPlan.of(record.payoutFreq(), record.compoundingFrequency());
+        return new PayoutScheduleIterator(plan,
+            record.requestTimestamp().toLocalDate(), record.maturityDate(), record.currencyCode(),
+            record.principalAmount(), record.effectiveRate(), payoutPeriodFactor(record.effectiveRate(), plan));
+    }
+
+    @Override
+    public FDMaturitySeriesResponse maturitySeries(FDMaturitySeriesRequest req) {
+        int fromMonths = req.min_tenure_months() != null ? req.min_tenure_months() : 1;
+        int toMonths = req.max_tenure_months() != null ? req.max_tenure_months() : 120;
+        if (fromMonths < 1 || toMonths < fromMonths || toMonths > maxSeriesTenureMonths) {
+            throw new IllegalArgumentException(String.format(
+                "Tenure range must satisfy 1 <= min_tenure_months <= max_tenure_months <= %d", maxSeriesTenureMonths));
+        }
+        if (req.principal_amount() == null) {
+            throw new IllegalArgumentException("principal_amount is required");
+        }
+
         String productCode = req.product_code() == null ? "FD001" : req.product_code();
+        ProductPricingSnapshot pricing = pricingSnapshotService.getSnapshot(productCode);
+        ProductDetailsDTO productDetails = pricing.productDetails();
+
+        String interestType = req.interest_type() != null ? req.interest_type() : productDetails.getInterestType();
+        String compoundingFrequency = req.compounding_frequency() != null ? req.compounding_frequency() : productDetails.getCompoundingFrequency();
+        if (interestType == null) {
+            throw new IllegalArgumentException("Interest type not found in request or product details");
+        }
+
+        productRuleValidationService.validateAmount(productCode, req.principal_amount());
+
+        String productSuffix = extractProductSuffix(productCode);
+        String currencyCode = req.currency_code() != null ? req.currency_code() : "INR";
+
+        List<String> categories = new ArrayList<>();
+        categories.add(null); // base rate series
+        if (req.categories() != null) {
+            req.categories().stream().filter(c -> c != null && !c.isBlank()).distinct().forEach(categories::add);
+        }
+
+        List<FDMaturitySeriesResponse.Series> series = new ArrayList<>(categories.size());
+        for (String category : categories) {
+            BigDecimal extra = categoryExtra(pricing, productSuffix, category, null);
+            series.add(new FDMaturitySeriesResponse.Series(category, maturityCurve(
+                pricing, productSuffix, req.principal_amount(), extra, interestType, compoundingFrequency,
+                fromMonths, toMonths, currencyCode)));
+        }
+        log.info("Maturity series for {}: {} series x {} tenures", productCode, series.size(), toMonths - fromMonths + 1);
+
+        return new FDMaturitySeriesResponse(productCode, currencyCode, req.principal_amount(),
+            interestType, compoundingFrequency, series);
+    }
+
+    /**
+     * Cumulative maturity values for each tenure from fromMonths to toMonths.
+     * Within a rate slab each point is the previous growth factor times the one-month factor
+     * (1 + r/m)^(m/12), so a point costs one multiplication; where constructRateCode switches
+     * slabs (12/24/36 months) the whole tenure is repriced at the new rate and the curve
+     * restarts from a single exponentiation.
+     */
+    private List<FDMaturitySeriesResponse.Point> maturityCurve(
+            ProductPricingSnapshot pricing, String productSuffix, BigDecimal principal, BigDecimal extra,
+            String interestType, String compoundingFrequency, int fromMonths, int toMonths, String currencyCode) {
+        boolean simple = "SIMPLE".equalsIgnoreCase(interestType);
+        int periodsPerYear = simple ? 1 : compoundingPeriodsPerYear(compoundingFrequency);
+        long principalE4 = CompoundInterestKernel.toAmountE4(principal);
+
+        List<FDMaturitySeriesResponse.Point> points = new ArrayList<>(toMonths - fromMonths + 1);
+        String rateCode = null;
+        BigDecimal ratePct = null;
+        long monthFactor = 0;
+        long factor = 0;
+        for (int months = fromMonths; months <= toMonths; months++) {
+            String slab = constructRateCode(months, productSuffix);
+            if (!slab.equals(rateCode)) {
+                rateCode = slab;
+                ratePct = getBaseRateFromApi(pricing, productSuffix, months, true, null, compoundingFrequency).add(extra);
+                long rateE4 = CompoundInterestKernel.toRateE4(ratePct);
+                monthFactor = compoundFactorTable.compoundFactor(rateE4, periodsPerYear, periodsPerYear, 12);
+                factor = compoundFactorTable.compoundFactor(rateE4, periodsPerYear, (long) periodsPerYear * months, 12);
+            } else {
+                factor = CompoundInterestKernel.multiply(factor, monthFactor);
+            }
+
+            BigDecimal maturityValue = simple
+                ? simpleMaturity(principal, ratePct, months, "MONTHS")
+                : CompoundInterestKernel.fromAmountE4(CompoundInterestKernel.applyFactor(principalE4, factor));
+            points.add(new FDMaturitySeriesResponse.Point(months, rateCode,
+                CurrencyUtil.formatRate(ratePct), CurrencyUtil.formatAmount(maturityValue, currencyCode)));
+        }
+        return points;
+    }
+
+    /**
+     * Price and compute one quote against an already resolved pricing snapshot.
+     * Reads rates and rules from memory; only falls back to the rate cache when the
+     * snapshot has no matching rate slab. Safe to run in parallel for batches.
+     */
+    private CalculationRecord compute(FDCalculationRequest req, ProductPricingSnapshot pricing) {
+        String productCode = pricing.productCode();
         
-        // Fetch product details to get interestType and compoundingFrequency
-        ProductDetailsDTO productDetails = pricingApiClient.getProductDetails(productCode);
-        log.info("Fetched product details for {}: interestType={}, compoundingFrequency={}", 
+        // Product details provide interestType and compoundingFrequency
+        ProductDetailsDTO productDetails = pricing.productDetails();
+        log.info("Using product details for {}: interestType={}, compoundingFrequency={}", 
             productCode, productDetails.getInterestType(), productDetails.getCompoundingFrequency());
         
         // Use values from product details if not provided in request
@@ -63,37 +366,12 @@ public class FDCalculatorServiceImpl implements FDCalculatorService {
         int tenureInMonths = calculateTenureInMonths(req.tenure_value(), req.tenure_unit());
         
         // Get base rate from Product & Pricing API based on tenure
-        BigDecimal baseRate = getBaseRateFromApi(productCode, productSuffix, tenureInMonths, 
+        BigDecimal baseRate = getBaseRateFromApi(pricing, productSuffix, tenureInMonths, 
             req.cumulative(), req.payout_freq(), compoundingFrequency);
         log.info("Base rate from API: {}%", baseRate);
         
-        // Fetch category benefits from Product & Pricing API
-        BigDecimal extra = BigDecimal.ZERO;
-        String category1RuleCode = null;
-        String category2RuleCode = null;
-        
-        if (req.category1_id() != null && !req.category1_id().isBlank()) {
-            category1RuleCode = constructRuleCode(req.category1_id(), productSuffix);
-            BigDecimal cat1Benefit = getCategoryBenefit(productCode, category1RuleCode, req.category1_id());
-            extra = extra.add(cat1Benefit);
-            log.info("Category 1 ({}) benefit: {}%", req.category1_id(), cat1Benefit);
-        }
-        
-        if (req.category2_id() != null && !req.category2_id().isBlank()) {
-            category2RuleCode = constructRuleCode(req.category2_id(), productSuffix);
-            BigDecimal cat2Benefit = getCategoryBenefit(productCode, category2RuleCode, req.category2_id());
-            extra = extra.add(cat2Benefit);
-            log.info("Category 2 ({}) benefit: {}%", req.category2_id(), cat2Benefit);
-        }
-        
-        // Get the maximum excess interest from product rules
-        BigDecimal maxExtraPercent = productRuleValidationService.getMaximumExcessInterest(productCode);
-        log.info("Total extra before cap: {}%, Max allowed: {}%", extra, maxExtraPercent);
-        
-        if (extra.compareTo(maxExtraPercent) > 0) {
-            log.warn("Extra interest {}% exceeds maximum {}%. Capping at maximum.", extra, maxExtraPercent);
-            extra = maxExtraPercent;
-        }
+        // Fetch category benefits from the pricing snapshot, capped at the product maximum
+        BigDecimal extra = categoryExtra(pricing, productSuffix, req.category1_id(), req.category2_id());
         
         BigDecimal effectiveRate = baseRate.add(extra);
         
@@ -160,7 +438,7 @@ public class FDCalculatorServiceImpl implements FDCalculatorService {
         effectiveRate = CurrencyUtil.formatRate(effectiveRate);
         apy = CurrencyUtil.formatRate(apy);
 
-        FDCalculationInput in = inputRepo.save(FDCalculationInput.builder()
+        return CalculationRecord.builder()
             .currencyCode(currencyCode)
             .principalAmount(req.principal_amount())
             .tenureValue(req.tenure_value())
@@ -171,58 +449,191 @@ public class FDCalculatorServiceImpl implements FDCalculatorService {
             .category2Code(req.category2_id())
             .productCode(productCode)
             .requestTimestamp(LocalDateTime.now())
-            .build());
-
-        FDCalculationResult res = resultRepo.save(FDCalculationResult.builder()
-            .calc(in)
             .maturityValue(maturityValue)
             .maturityDate(maturityDate)
             .apy(apy)
             .effectiveRate(effectiveRate)
             .payoutFreq(payoutFreq)
             .payoutAmount(payoutAmount)
-            .build());
+            .build();
+    }
 
+    /**
+     * Sum of the category benefits for up to two categories, capped at the product's
+     * maximum excess interest
+     */
+    private BigDecimal categoryExtra(ProductPricingSnapshot pricing, String productSuffix,
+                                     String category1, String category2) {
+        String ruleCode1 = categoryRuleCode(pricing, category1, productSuffix);
+        String ruleCode2 = categoryRuleCode(pricing, category2, productSuffix);
+        
+        // Benefits stack and are capped in one pass over the compiled rules
+        ProductRuleSet.Adjustment adjustment = pricing.ruleSet().adjust(ruleCode1, ruleCode2);
+        log.info("Total extra before cap: {}%, Max allowed: {}%", 
+            adjustment.uncapped(), pricing.ruleSet().maximumExcessInterest());
+        
+        if (adjustment.capped()) {
+            log.warn("Extra interest {}% exceeds maximum {}%. Capping at maximum.", 
+                adjustment.uncapped(), adjustment.extra());
+        }
+        return adjustment.extra();
+    }
+    
+    /**
+     * Rule code of a category's benefit, or null if no category was given. Categories
+     * without a benefit rule get 0% benefit.
+     */
+    private String categoryRuleCode(ProductPricingSnapshot pricing, String category, String productSuffix) {
+        if (category == null || category.isBlank()) {
+            return null;
+        }
+        String ruleCode = constructRuleCode(category, productSuffix);
+        BigDecimal benefit = pricing.ruleSet().benefit(ruleCode);
+        if (benefit == null) {
+            log.warn("No rule found for category: {} (rule code: {}). Using 0% benefit.", category, ruleCode);
+        } else {
+            log.info("Category {} benefit: {}%", category, benefit);
+        }
+        return ruleCode;
+    }
+
+    private FDCalculationResponse toResponse(CalculationRecord record) {
         return new FDCalculationResponse(
-            res.getMaturityValue(),
-            res.getMaturityDate().toString(),
-            res.getApy(),
-            res.getEffectiveRate(),
-            res.getPayoutFreq(),
-            res.getPayoutAmount(),
-            in.getCalcId(),
-            res.getResultId(),
-            in.getCategory1Code(),
-            in.getCategory2Code(),
-            in.getProductCode(),
-            in.getPrincipalAmount(),
-            in.getTenureValue(),
-            in.getTenureUnit()
+            record.maturityValue(),
+            record.maturityDate().toString(),
+            record.apy(),
+            record.effectiveRate(),
+            record.payoutFreq(),
+            record.payoutAmount(),
+            record.calcId(),
+            record.resultId(),
+            record.category1Code(),
+            record.category2Code(),
+            record.productCode(),
+            record.principalAmount(),
+            record.tenureValue(),
+            record.tenureUnit()
         );
     }
 
-    @Override
-    public FDCalculationResponse getByCalcId(Long calcId) {
-        FDCalculationResult res = resultRepo.findByCalc_CalcId(calcId);
-        if (res == null) throw new IllegalArgumentException("Calculation not found");
+    /**
+     * The response as a read of its stored row returns it: amounts and rates at the columns' scale
+     * of 4, e.g. 157969.7500 rather than 157969.75. Reads by calc id give the same answer whether
+     * they are served from the cache, the write-behind queue or the database.
+     */
+    private static FDCalculationResponse asStored(FDCalculationResponse response) {
         return new FDCalculationResponse(
-            res.getMaturityValue(),
-            res.getMaturityDate().toString(),
-            res.getApy(),
-            res.getEffectiveRate(),
-            res.getPayoutFreq(),
-            res.getPayoutAmount(),
-            res.getCalc().getCalcId(),
-            res.getResultId(),
-            res.getCalc().getCategory1Code(),
-            res.getCalc().getCategory2Code(),
-            res.getCalc().getProductCode(),
-            res.getCalc().getPrincipalAmount(),
-            res.getCalc().getTenureValue(),
-            res.getCalc().getTenureUnit()
+            atStoredScale(response.maturity_value()),
+            response.maturity_date(),
+            atStoredScale(response.apy()),
+            atStoredScale(response.effective_rate()),
+            response.payout_freq(),
+            atStoredScale(response.payout_amount()),
+            response.calc_id(),
+            response.result_id(),
+            response.category1_id(),
+            response.category2_id(),
+            response.product_code(),
+            atStoredScale(response.principal_amount()),
+            response.tenure_value(),
+            response.tenure_unit()
         );
     }
 
+    private static BigDecimal atStoredScale(BigDecimal value) {
+        return value == null ? null : value.setScale(STORED_SCALE, RoundingMode.HALF_UP);
+    }
+
+    private String resolveProductCode(FDCalculationRequest req) {
+        return req.product_code() == null ? "FD001" : req.product_code();
+    }
+
+    @Override
+    public FDCalculationResponse getByCalcId(Long calcId) {
+        Optional<FDCalculationResponse> cached = calculationResultCacheService.get(calcId);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        // Submitted write-behind and not written yet (records leave the pending set only once stored)
+        Optional<CalculationRecord> pending = calculationAuditService.pending(calcId);
+        if (pending.isPresent()) {
+            return asStored(toResponse(pending.get()));
+        }
+        // Look in the configured layout first; quotes saved before a layout switch stay in the others
+        Optional<FDCalculationResponse> stored;
+        if (calculationBatchRepository.partitionedStorage()) {
+            stored = partitionRepo.findResponse(calcId)
+                .or(() -> recordRepo.findResponse(calcId))
+                .or(() -> resultRepo.findResponse(calcId));
+        } else if (calculationBatchRepository.singleRowStorage()) {
+            stored = recordRepo.findResponse(calcId)
+                .or(() -> resultRepo.findResponse(calcId))
+                .or(() -> partitionRepo.findResponse(calcId));
+        } else {
+            stored = resultRepo.findResponse(calcId)
+                .or(() -> recordRepo.findResponse(calcId))
+                .or(() -> partitionRepo.findResponse(calcId));
+        }
+        FDCalculationResponse response = stored.orElseThrow(() -> new IllegalArgumentException("Calculation not found"));
+        calculationResultCacheService.put(response);
+        return response;
+    }
+
+    @Override
+    public CalculationHistoryPage history(String productCode, LocalDateTime from, LocalDateTime to, String category,
+                                          String cursor, Integer limit) {
+        int pageSize = limit != null ? limit : defaultHistoryPageSize;
+        if (pageSize < 1 || pageSize > maxHistoryPageSize) {
+            throw new IllegalArgumentException(String.format("limit must be between 1 and %d", maxHistoryPageSize));
+        }
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+
+        LocalDateTime afterTimestamp = null;
+        Long afterCalcId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            // Cursor: "<request timestamp>|<calc id>" of the last row of the previous page, base64url encoded
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+                afterTimestamp = LocalDateTime.parse(parts[0]);
+                afterCalcId = Long.parseLong(parts[1]);
+            } catch (IllegalArgumentException | DateTimeParseException | ArrayIndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+        }
+
+        // One row more than the page tells whether there is a next page
+        List<CalculationHistoryPage.Item> rows = historyRepo.findPage(blankToNull(productCode), from, to,
+            blankToNull(category), afterTimestamp, afterCalcId, pageSize + 1);
+        if (rows.size() <= pageSize) {
+            return new CalculationHistoryPage(rows, null);
+        }
+        List<CalculationHistoryPage.Item> page = rows.subList(0, pageSize);
+        CalculationHistoryPage.Item last = page.get(pageSize - 1);
+        String nextCursor = Base64.getUrlEncoder().withoutPadding().encodeToString(
+            (last.request_timestamp() + "|" + last.calc_id()).getBytes(StandardCharsets.UTF_8));
+        return new CalculationHistoryPage(List.copyOf(page), nextCursor);
+    }
+
+    @Override
+    public HistoryExport exportHistory(String productCode, LocalDateTime from, LocalDateTime to, String category) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        String product = blankToNull(productCode);
+        String categoryCode = blankToNull(category);
+        // Read-only: no flush, and the connection (with its open cursor) is kept until the last row
+        TransactionTemplate readOnly = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        readOnly.setReadOnly(true);
+        return sink -> readOnly.executeWithoutResult(
+            status -> historyRepo.exportAll(product, from, to, categoryCode, sink));
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
     private LocalDate calcMaturityDate(int tenureValue, String tenureUnit) {
         LocalDate today = LocalDate.now();
         return switch (tenureUnit.toUpperCase()) {
@@ -240,17 +651,20 @@ public class FDCalculatorServiceImpl implements FDCalculatorService {
     }
 
     private BigDecimal compoundMaturity(BigDecimal principal, BigDecimal ratePct, int tenure, String unit, String freq) {
-        BigDecimal years = toYears(tenure, unit);
-        int n = switch ((freq == null ? "YEARLY" : freq).toUpperCase()) {
+        int n = compoundingPeriodsPerYear(freq);
+        // n * years periods, kept as an exact fraction: n * tenure / (tenure units per year)
+        return compoundFactorTable.compoundAmount(
+            principal, CompoundInterestKernel.toRateE4(ratePct), n, (long) n * tenure, tenureUnitsPerYear(unit));
+    }
+
+    private int compoundingPeriodsPerYear(String freq) {
+        return switch ((freq == null ? "YEARLY" : freq).toUpperCase()) {
             case "DAILY" -> 365;
             case "MONTHLY" -> 12;
             case "QUARTERLY" -> 4;
             case "YEARLY" -> 1;
             default -> throw new IllegalArgumentException("Invalid compounding_frequency");
         };
-        BigDecimal r = ratePct.movePointLeft(2);
-        double factor = Math.pow(1.0 + r.doubleValue() / n, n * years.doubleValue());
-        return principal.multiply(new BigDecimal(factor, MathContext.DECIMAL64)).setScale(4, BigDecimal.ROUND_HALF_UP);
     }
 
     private BigDecimal calcAPY(BigDecimal ratePct, String freq) {
@@ -258,9 +672,17 @@ public class FDCalculatorServiceImpl implements FDCalculatorService {
             case "DAILY" -> 365; case "MONTHLY" -> 12; case "QUARTERLY" -> 4; case "YEARLY" -> 1;
             default -> 1;
         };
-        BigDecimal r = ratePct.movePointLeft(2);
-        double apy = Math.pow(1 + r.doubleValue() / n, n) - 1;
-        return new BigDecimal(apy).movePointRight(2).setScale(4, BigDecimal.ROUND_HALF_UP);
+        return CompoundInterestKernel.fromRateE4(
+            compoundFactorTable.apyE4(CompoundInterestKernel.toRateE4(ratePct), n));
+    }
+
+    private long tenureUnitsPerYear(String unit) {
+        return switch (unit.toUpperCase()) {
+            case "DAYS" -> 365;
+            case "MONTHS" -> 12;
+            case "YEARS" -> 1;
+            default -> throw new IllegalArgumentException("Invalid tenure_unit");
+        };
     }
 
     private BigDecimal toYears(int tenure, String unit) {
@@ -294,61 +716,40 @@ public class FDCalculatorServiceImpl implements FDCalculatorService {
             String payoutFreq,
             String compoundingFreq) {
         
-        // Convert rate from percentage to decimal
-        BigDecimal rate = ratePct.movePointLeft(2);
-        
-        // If compounding frequency is null, use payout frequency
-        if (compoundingFreq == null) compoundingFreq = payoutFreq;
+        PayoutPlan plan = PayoutPlan.of(payoutFreq, compoundingFreq);
         
-        // Get compounding periods per year
-        int compoundingPeriodsPerYear = switch (compoundingFreq.toUpperCase()) {
-            case "DAILY" -> 365;
-            case "MONTHLY" -> 12;
-            case "QUARTERLY" -> 4;
-            case "YEARLY" -> 1;
-            default -> 4; // Default to quarterly
-        };
-        
-        // Get payout periods per year
-        int payoutPeriodsPerYear = switch (payoutFreq.toUpperCase()) {
-            case "MONTHLY" -> 12;
-            case "QUARTERLY" -> 4;
-            case "YEARLY" -> 1;
-            default -> 1; // Default to yearly
-        };
-        
-        // Calculate number of compounding periods per payout period
-        // Example: If compounding is QUARTERLY (4/year) and payout is YEARLY (1/year)
-        //          then n = 4/1 = 4 (compounds 4 times per payout)
-        int n = compoundingPeriodsPerYear / payoutPeriodsPerYear;
-        
-        if (n < 1) {
+        if (plan.payoutMoreFrequentThanCompounding()) {
             // Payout frequency is more frequent than compounding
             // Example: compounding YEARLY but payout QUARTERLY
             // In this case, use simple interest calculation
-            n = 1;
             log.warn("Payout frequency ({}) is more frequent than compounding frequency ({}). Using simple interest calculation.", 
-                     payoutFreq, compoundingFreq);
+                     payoutFreq, plan.compoundingFrequency());
         }
         
         // Calculate compound interest for one payout period
         // Formula: A = P × [(1 + r/m)^n - 1]
         // where m = compounding periods per year, n = compounding periods per payout
-        double ratePerCompoundingPeriod = rate.doubleValue() / compoundingPeriodsPerYear;
-        double compoundFactor = Math.pow(1.0 + ratePerCompoundingPeriod, n);
-        double interestFactor = compoundFactor - 1.0;
+        long compoundFactor = payoutPeriodFactor(ratePct, plan);
         
-        BigDecimal payoutAmount = principal.multiply(
-            new BigDecimal(interestFactor, MathContext.DECIMAL64)
-        );
+        BigDecimal payoutAmount = compoundFactorTable.compoundInterest(
+            principal, CompoundInterestKernel.toRateE4(ratePct), plan.compoundingPeriodsPerYear(), plan.compoundsPerPayout(), 1);
         
         log.info("Non-cumulative payout calculation: Principal={}, Rate={}%, " +
                  "Compounding freq={} ({}/year), Payout freq={} ({}/year), " +
                  "Compounds per payout={}, Compound factor={}, Payout amount per period={}", 
-                 principal, ratePct, compoundingFreq, compoundingPeriodsPerYear, 
-                 payoutFreq, payoutPeriodsPerYear, n, compoundFactor, payoutAmount);
+                 principal, ratePct, plan.compoundingFrequency(), plan.compoundingPeriodsPerYear(), 
+                 payoutFreq, plan.payoutPeriodsPerYear(), plan.compoundsPerPayout(),
+                 BigDecimal.valueOf(compoundFactor, CompoundInterestKernel.FACTOR_SCALE), payoutAmount);
         
-        return payoutAmount.setScale(4, RoundingMode.HALF_UP);
+        return payoutAmount;
+    }
+    
+    /**
+     * Growth factor over one payout period, (1 + r/m)^n
+     */
+    private long payoutPeriodFactor(BigDecimal ratePct, PayoutPlan plan) {
+        return compoundFactorTable.compoundFactor(
+            CompoundInterestKernel.toRateE4(ratePct), plan.compoundingPeriodsPerYear(), plan.compoundsPerPayout(), 1);
     }
     
     /**
@@ -365,46 +766,11 @@ public class FDCalculatorServiceImpl implements FDCalculatorService {
     /**
      * Construct rule code from category code and product suffix
      * e.g., "SENIOR" + "001" -> "SR001", "GOLD" + "001" -> "GOLD001"
+     * Category names map to rule code prefixes through the category alias index;
+     * unknown categories are used as-is
      */
     private String constructRuleCode(String categoryCode, String productSuffix) {
-        String upperCategoryCode = categoryCode.toUpperCase();
-        
-        // Map common category names to rule code prefixes
-        String prefix = switch (upperCategoryCode) {
-            case "SENIOR", "SENIOR_CITIZEN", "SR" -> "SR";
-            case "JUNIOR", "JR" -> "JR";
-            case "DIGI_YOUTH", "DY" -> "DY";
-            case "GOLD" -> "GOLD";
-            case "SILVER", "SIL" -> "SIL";
-            case "PLATINUM", "PLAT" -> "PLAT";
-            case "EMPLOYEE", "EMP" -> "EMP";
-            default -> upperCategoryCode; // Use as-is if not a known category
-        };
-        
-        return prefix + productSuffix;
-    }
-    
-    /**
-     * Fetch category benefit from Product & Pricing API
-     */
-    private BigDecimal getCategoryBenefit(String productCode, String ruleCode, String categoryName) {
-        try {
-            ProductRuleDTO rule = pricingApiClient.getRuleByCode(productCode, ruleCode);
-            
-            if (rule == null) {
-                log.warn("No rule found for category: {} (rule code: {}). Using 0% benefit.", 
-                    categoryName, ruleCode);
-                return BigDecimal.ZERO;
-            }
-            
-            log.info("Found rule: {} with value: {}", rule.ruleName(), rule.ruleValue());
-            return new BigDecimal(rule.ruleValue());
-            
-        } catch (Exception e) {
-            log.error("Error fetching category benefit for {} (rule code: {}): {}", 
-                categoryName, ruleCode, e.getMessage());
-            return BigDecimal.ZERO;
-        }
+        return categoryIndexService.index().ruleCodePrefix(categoryCode) + productSuffix;
     }
     
     /**
@@ -443,19 +809,18 @@ public class FDCalculatorServiceImpl implements FDCalculatorService {
     }
     
     /**
-     * Get base rate from Product & Pricing API based on tenure and cumulative flag
+     * Get base rate from the product's pricing snapshot based on tenure and cumulative flag
      */
-    private BigDecimal getBaseRateFromApi(String productCode, String productSuffix, 
+    private BigDecimal getBaseRateFromApi(ProductPricingSnapshot pricing, String productSuffix, 
                                           int tenureInMonths, Boolean cumulative, 
                                           String payoutFreq, String compoundingFreq) {
+        String productCode = pricing.productCode();
         try {
             // Construct rate code based on tenure
             String rateCode = constructRateCode(tenureInMonths, productSuffix);
-            log.info("Fetching interest rate with code: {} for product: {}", rateCode, productCode);
+            log.info("Looking up interest rate with code: {} for product: {}", rateCode, productCode);
             
-            // Fetch interest rate from API
-            com.btlab.fdcalculator.model.dto.ProductInterestDTO interestRate = 
-                pricingApiClient.getInterestRateByCode(productCode, rateCode);
+            ProductInterestDTO interestRate = pricing.rate(rateCode);
             
             if (interestRate == null) {
                 log.warn("No interest rate found for code: {}. Using fallback rate.", rateCode);
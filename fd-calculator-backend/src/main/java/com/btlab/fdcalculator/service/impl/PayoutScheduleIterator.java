@@ -0,0 +1,147 @@
+package com.btlab.fdcalculator.service.impl;
+
+import com.btlab.fdcalculator.model.domain.PayoutPlan;
+import com.btlab.fdcalculator.model.dto.PayoutScheduleEvent;
+import com.btlab.fdcalculator.util.CompoundInterestKernel;
+import com.btlab.fdcalculator.util.CurrencyUtil;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Lazily generates the dated cash-flow schedule of a non-cumulative FD.
+ *
+ * Each payout period starts with {@link PayoutPlan#compoundsPerPayout()} compounding events,
+ * the last one on the payout date, followed by a payout of the accrued interest; the payout
+ * equals the quoted payout_amount. A final MATURITY event returns the principal plus any interest
+ * accrued in a trailing partial period. Only the current position is kept, so memory use does
+ * not depend on the tenure (a 10-year daily schedule is ~3,800 events).
+ *
+ * Dates are counted from the start date rather than from the previous event, so month-end
+ * dates do not drift. Accrual is tracked in kernel fixed point (amount * 10^4).
+ */
+class PayoutScheduleIterator implements Iterator<PayoutScheduleEvent> {
+
+    private enum Step { COMPOUNDING, PAYOUT, MATURITY, DONE }
+
+    private final PayoutPlan plan;
+    private final LocalDate startDate;
+    private final LocalDate maturityDate;
+    private final String currencyCode;
+    private final long principalE4;
+    private final long periodBase;
+    private final long payoutPeriodFactor;
+
+    private Step step;
+    private long sequence;
+    private int period;
+    private LocalDate periodStart;
+    private LocalDate periodEnd;
+    private boolean fullPeriod;
+    private int compound;
+    private long growth;
+    private long accruedE4;
+
+    /**
+     * @param payoutPeriodFactor growth over one payout period, (1 + r/m)^n, as used for the quoted payout amount
+     */
+    PayoutScheduleIterator(PayoutPlan plan, LocalDate startDate, LocalDate maturityDate, String currencyCode,
+                           BigDecimal principal, BigDecimal ratePct, long payoutPeriodFactor) {
+        this.plan = plan;
+        this.startDate = startDate;
+        this.maturityDate = maturityDate;
+        this.currencyCode = currencyCode;
+        this.principalE4 = CompoundInterestKernel.toAmountE4(principal);
+        this.periodBase = CompoundInterestKernel.ONE + CompoundInterestKernel.periodRate(
+            CompoundInterestKernel.toRateE4(ratePct), plan.compoundingPeriodsPerYear());
+        this.payoutPeriodFactor = payoutPeriodFactor;
+        startPeriod(1);
+    }
+
+    @Override
+    public boolean hasNext() {
+        return step != Step.DONE;
+    }
+
+    @Override
+    public PayoutScheduleEvent next() {
+        return switch (step) {
+            case COMPOUNDING -> nextCompounding();
+            case PAYOUT -> payout();
+            case MATURITY -> maturity();
+            case DONE -> throw new NoSuchElementException();
+        };
+    }
+
+    private PayoutScheduleEvent nextCompounding() {
+        LocalDate date = compoundingDate();
+        if (!fullPeriod && date.isAfter(maturityDate)) {
+            step = Step.MATURITY;
+            return maturity();
+        }
+
+        // Accrue as principal * (growth - 1) rather than summing rounded credits, so the
+        // last compounding of a period lands exactly on the quoted payout amount
+        boolean periodClose = fullPeriod && compound == plan.compoundsPerPayout();
+        growth = periodClose ? payoutPeriodFactor : CompoundInterestKernel.multiply(growth, periodBase);
+        long accrued = CompoundInterestKernel.interest(principalE4, growth);
+        long credited = accrued - accruedE4;
+        accruedE4 = accrued;
+
+        compound++;
+        if (compound > plan.compoundsPerPayout()) {
+            step = fullPeriod ? Step.PAYOUT : Step.MATURITY;
+        }
+        return new PayoutScheduleEvent(++sequence, date.toString(), "COMPOUNDING",
+            amount(credited), amount(accruedE4), null, null);
+    }
+
+    private PayoutScheduleEvent payout() {
+        long paid = accruedE4;
+        LocalDate date = periodEnd;
+        startPeriod(period + 1);
+        return new PayoutScheduleEvent(++sequence, date.toString(), "PAYOUT",
+            null, amount(0), amount(paid), null);
+    }
+
+    private PayoutScheduleEvent maturity() {
+        long paid = accruedE4;
+        accruedE4 = 0;
+        step = Step.DONE;
+        return new PayoutScheduleEvent(++sequence, maturityDate.toString(), "MATURITY",
+            null, amount(0), amount(paid), amount(principalE4));
+    }
+
+    private void startPeriod(int next) {
+        period = next;
+        periodStart = payoutDate(next - 1);
+        periodEnd = payoutDate(next);
+        fullPeriod = !periodEnd.isAfter(maturityDate);
+        compound = 1;
+        growth = CompoundInterestKernel.ONE;
+        accruedE4 = 0;
+        step = periodStart.isBefore(maturityDate) ? Step.COMPOUNDING : Step.MATURITY;
+    }
+
+    private LocalDate compoundingDate() {
+        // Interest compounding less often than it is paid out is credited on the payout date
+        if (plan.payoutMoreFrequentThanCompounding() || (fullPeriod && compound == plan.compoundsPerPayout())) {
+            return periodEnd;
+        }
+        LocalDate date = plan.compoundingPeriodsPerYear() == 365
+            ? periodStart.plusDays(compound)
+            : periodStart.plusMonths((long) compound * (12 / plan.compoundingPeriodsPerYear()));
+        // e.g. 30 daily compoundings in a 28-day month: the remainder is credited on the payout date
+        return date.isAfter(periodEnd) ? periodEnd : date;
+    }
+
+    private LocalDate payoutDate(int payoutPeriod) {
+        return startDate.plusMonths((long) payoutPeriod * (12 / plan.payoutPeriodsPerYear()));
+    }
+
+    private BigDecimal amount(long amountE4) {
+        return CurrencyUtil.formatAmount(CompoundInterestKernel.fromAmountE4(amountE4), currencyCode);
+    }
+}
@@ -0,0 +1,294 @@
+package com.btlab.fdcalculator.service.impl;
+
+import com.btlab.fdcalculator.model.domain.DepositBook;
+import com.btlab.fdcalculator.model.domain.ProjectionBucket;
+import com.btlab.fdcalculator.model.dto.PortfolioProjectionResponse;
+import com.btlab.fdcalculator.repository.DepositBookRepository;
+import com.btlab.fdcalculator.service.PortfolioProjectionService;
+import com.btlab.fdcalculator.util.CompoundFactorTable;
+import com.btlab.fdcalculator.util.CompoundInterestKernel;
+import com.btlab.fdcalculator.util.CurrencyUtil;
+import com.btlab.fdcalculator.util.EpochDays;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Projects the deposit book with fork-join over row ranges. Each leaf task scans its rows
+ * once, computing maturity and payout amounts with the fixed-point kernel and the shared
+ * factor table (deposits repeat the same few rate/tenure combinations), and adds them into
+ * its own bucket arrays; partial results are summed on the way back up.
+ * No objects are allocated per row.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PortfolioProjectionServiceImpl implements PortfolioProjectionService {
+
+    private final DepositBookRepository depositBookRepository;
+    private final CompoundFactorTable compoundFactorTable;
+    private final ForkJoinPool projectionPool;
+
+    @Value("${fd.projection.chunk-rows:65536}")
+    private int chunkRows;
+
+    @Value("${fd.projection.max-buckets:5000}")
+    private int maxBuckets;
+
+    private volatile DepositBook book;
+
+    @Override
+    public PortfolioProjectionResponse project(LocalDate from, LocalDate to, String bucket, String currencyCode, boolean reloadBook) {
+        ProjectionBucket bucketType = ProjectionBucket.parse(bucket);
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("to_date must not be before from_date");
+        }
+        int fromDay = (int) from.toEpochDay();
+        int toDay = (int) to.toEpochDay();
+        int bucketCount = bucketType.indexOf(fromDay, toDay) + 1;
+        if (bucketCount > maxBuckets) {
+            throw new IllegalArgumentException(String.format(
+                "Projection has %d buckets, maximum is %d. Use a wider bucket or a shorter range", bucketCount, maxBuckets));
+        }
+
+        DepositBook deposits = book(reloadBook);
+        int currency = deposits.currencyIndex(currencyCode);
+
+        long started = System.nanoTime();
+        Totals totals = currency < 0
+            ? new Totals(bucketCount)
+            : projectionPool.invoke(new ChunkTask(deposits, currency, currencyUnit(currencyCode),
+                bucketType, fromDay, toDay, bucketCount, 0, deposits.size()));
+        long computeMillis = (System.nanoTime() - started) / 1_000_000;
+        log.info("Projected {} deposits ({}) from {} to {} into {} {} buckets in {} ms",
+            deposits.size(), currencyCode, from, to, bucketCount, bucketType, computeMillis);
+
+        List<PortfolioProjectionResponse.Bucket> buckets = new ArrayList<>(bucketCount);
+        long totalPrincipal = 0;
+        long totalInterest = 0;
+        for (int i = 0; i < bucketCount; i++) {
+            LocalDate end = i + 1 < bucketCount ? bucketType.start(from, i + 1).minusDays(1) : to;
+            buckets.add(new PortfolioProjectionResponse.Bucket(
+                bucketType.start(from, i).toString(), end.toString(), totals.maturing[i],
+                amount(totals.principal[i], currencyCode), amount(totals.interest[i], currencyCode),
+                amount(Math.addExact(totals.principal[i], totals.interest[i]), currencyCode)));
+            totalPrincipal = Math.addExact(totalPrincipal, totals.principal[i]);
+            totalInterest = Math.addExact(totalInterest, totals.interest[i]);
+        }
+
+        return new PortfolioProjectionResponse(currencyCode, from.toString(), to.toString(), bucketType.name(),
+            deposits.size(), deposits.loadedAt().toString(), computeMillis,
+            amount(totalPrincipal, currencyCode), amount(totalInterest, currencyCode), buckets);
+    }
+
+    private DepositBook book(boolean reload) {
+        DepositBook current = book;
+        if (current != null && !reload) {
+            return current;
+        }
+        synchronized (this) {
+            if (book == null || reload) {
+                book = depositBookRepository.loadBook();
+            }
+            return book;
+        }
+    }
+
+    /**
+     * Smallest currency unit in kernel fixed point, e.g. 100 (0.01) for INR
+     */
+    private static long currencyUnit(String currencyCode) {
+        return BigDecimal.ONE.movePointRight(CompoundInterestKernel.AMOUNT_SCALE - CurrencyUtil.getDecimalPlaces(currencyCode)).longValueExact();
+    }
+
+    private static BigDecimal amount(long amountE4, String currencyCode) {
+        return CurrencyUtil.formatAmount(CompoundInterestKernel.fromAmountE4(amountE4), currencyCode);
+    }
+
+    /**
+     * Per-bucket sums, amounts in kernel fixed point
+     */
+    private static final class Totals {
+        final long[] principal;
+        final long[] interest;
+        final int[] maturing;
+
+        Totals(int buckets) {
+            principal = new long[buckets];
+            interest = new long[buckets];
+            maturing = new int[buckets];
+        }
+
+        Totals add(Totals other) {
+            for (int i = 0; i < principal.length; i++) {
+                principal[i] = Math.addExact(principal[i], other.principal[i]);
+                interest[i] = Math.addExact(interest[i], other.interest[i]);
+                maturing[i] += other.maturing[i];
+            }
+            return this;
+        }
+    }
+
+    private final class ChunkTask extends RecursiveTask<Totals> {
+
+        private final DepositBook deposits;
+        private final int currency;
+        private final long currencyUnit;
+        private final ProjectionBucket bucketType;
+        private final int fromDay;
+        private final int fromMonthIndex;
+        private final int toDay;
+        private final int bucketCount;
+        private final int startRow;
+        private final int endRow;
+
+        ChunkTask(DepositBook deposits, int currency, long currencyUnit, ProjectionBucket bucketType,
+                  int fromDay, int toDay, int bucketCount, int startRow, int endRow) {
+            this.deposits = deposits;
+            this.currency = currency;
+            this.currencyUnit = currencyUnit;
+            this.bucketType = bucketType;
+            this.fromDay = fromDay;
+            this.fromMonthIndex = EpochDays.monthIndex(fromDay);
+            this.toDay = toDay;
+            this.bucketCount = bucketCount;
+            this.startRow = startRow;
+            this.endRow = endRow;
+        }
+
+        @Override
+        protected Totals compute() {
+            if (endRow - startRow <= chunkRows) {
+                Totals totals = new Totals(bucketCount);
+                for (int row = startRow; row < endRow; row++) {
+                    if (deposits.currency(row) == currency) {
+                        projectRow(row, totals);
+                    }
+                }
+                return totals;
+            }
+            int middle = (startRow + endRow) >>> 1;
+            ChunkTask left = new ChunkTask(deposits, currency, currencyUnit, bucketType, fromDay, toDay, bucketCount, startRow, middle);
+            ChunkTask right = new ChunkTask(deposits, currency, currencyUnit, bucketType, fromDay, toDay, bucketCount, middle, endRow);
+            left.fork();
+            Totals rightTotals = right.compute();
+            return left.join().add(rightTotals);
+        }
+
+        private void projectRow(int row, Totals totals) {
+            long principal = deposits.principalE4(row);
+            long rateE4 = deposits.rateE4(row);
+            int maturityDay = deposits.maturityDay(row);
+            int periodsPerYear = deposits.compoundingPeriodsPerYear(row);
+            int payoutsPerYear = deposits.payoutPeriodsPerYear(row);
+            boolean matures = maturityDay >= fromDay && maturityDay <= toDay;
+
+            if (matures) {
+                int bucket = bucketType.indexOf(fromDay, fromMonthIndex, maturityDay);
+                totals.principal[bucket] = Math.addExact(totals.principal[bucket], principal);
+                totals.maturing[bucket]++;
+                if (payoutsPerYear == 0) {
+                    // Cumulative: all interest is paid with the principal, same math as compoundMaturity/simpleMaturity
+                    long tenure = deposits.tenureValue(row);
+                    long unitsPerYear = deposits.tenureUnitsPerYear(row);
+                    long factor = deposits.simpleInterest(row)
+                        ? CompoundInterestKernel.simpleFactor(rateE4, tenure, unitsPerYear)
+                        : compoundFactorTable.compoundFactor(rateE4, periodsPerYear, periodsPerYear * tenure, unitsPerYear);
+                    totals.interest[bucket] = Math.addExact(totals.interest[bucket],
+                        truncate(CompoundInterestKernel.interest(principal, factor)));
+                }
+            }
+            if (payoutsPerYear > 0) {
+                projectPayouts(row, principal, rateE4, periodsPerYear, payoutsPerYear, maturityDay, totals);
+            }
+        }
+
+        /**
+         * Periodic payouts of a non-cumulative deposit that fall inside the projection,
+         * dated like the payout schedule (start date plus whole payout periods, up to maturity),
+         * and the interest of a trailing partial period, paid at maturity
+         */
+        private void projectPayouts(int row, long principal, long rateE4, int periodsPerYear, int payoutsPerYear,
+                                    int maturityDay, Totals totals) {
+            int startDay = deposits.startDay(row);
+            int lastDay = Math.min(maturityDay, toDay);
+            if (lastDay < fromDay || startDay >= lastDay) {
+                return;
+            }
+            int monthsPerPayout = 12 / payoutsPerYear;
+            // Skip straight to the payouts near the projection start
+            int period = Math.max(1, (fromMonthIndex - EpochDays.monthIndex(startDay)) / monthsPerPayout);
+            int startCivil = EpochDays.civil(startDay);
+            long payout = -1;
+            for (; ; period++) {
+                int payoutDay = EpochDays.plusMonthsCivil(startCivil, period * monthsPerPayout);
+                if (payoutDay > lastDay) {
+                    break;
+                }
+                if (payoutDay < fromDay) {
+                    continue;
+                }
+                if (payout < 0) {
+                    int compoundsPerPayout = Math.max(1, periodsPerYear / payoutsPerYear);
+                    payout = truncate(CompoundInterestKernel.interest(principal,
+                        compoundFactorTable.compoundFactor(rateE4, periodsPerYear, compoundsPerPayout, 1)));
+                }
+                int bucket = bucketType.indexOf(fromDay, fromMonthIndex, payoutDay);
+                totals.interest[bucket] = Math.addExact(totals.interest[bucket], payout);
+            }
+            if (maturityDay <= toDay) {
+                int stubStart = EpochDays.plusMonthsCivil(startCivil, (period - 1) * monthsPerPayout);
+                long stub = stubInterest(principal, rateE4, periodsPerYear, payoutsPerYear, stubStart, maturityDay);
+                if (stub > 0) {
+                    int bucket = bucketType.indexOf(fromDay, fromMonthIndex, maturityDay);
+                    totals.interest[bucket] = Math.addExact(totals.interest[bucket], stub);
+                }
+            }
+        }
+
+        /**
+         * Interest accrued from the last payout date to maturity when the tenure is not a whole number
+         * of payout periods. Compounds on the same dates as the payout schedule; none accrues when
+         * interest compounds less often than it is paid out.
+         */
+        private long stubInterest(long principal, long rateE4, int periodsPerYear, int payoutsPerYear,
+                                  int stubStart, int maturityDay) {
+            if (stubStart >= maturityDay || periodsPerYear < payoutsPerYear) {
+                return 0;
+            }
+            int compoundsPerPayout = Math.max(1, periodsPerYear / payoutsPerYear);
+            int compounds;
+            if (periodsPerYear == 365) {
+                compounds = Math.min(maturityDay - stubStart, compoundsPerPayout);
+            } else {
+                int monthsPerCompound = 12 / periodsPerYear;
+                compounds = 0;
+                while (compounds < compoundsPerPayout
+                        && EpochDays.plusMonths(stubStart, (compounds + 1) * monthsPerCompound) <= maturityDay) {
+                    compounds++;
+                }
+            }
+            long periodBase = CompoundInterestKernel.ONE + CompoundInterestKernel.periodRate(rateE4, periodsPerYear);
+            long growth = CompoundInterestKernel.ONE;
+            for (int i = 0; i < compounds; i++) {
+                growth = CompoundInterestKernel.multiply(growth, periodBase);
+            }
+            return truncate(CompoundInterestKernel.interest(principal, growth));
+        }
+
+        /**
+         * Round down to the currency's decimals, as each deposit's quote is
+         */
+        private long truncate(long amountE4) {
+            return amountE4 - amountE4 % currencyUnit;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.btlab.fdcalculator.service.impl;
+
+import com.btlab.fdcalculator.client.CachingPricingApiClient;
+import com.btlab.fdcalculator.client.PricingApiClient;
+import com.btlab.fdcalculator.client.ProductRulePager;
+import com.btlab.fdcalculator.model.domain.CategoryAliasIndex;
+import com.btlab.fdcalculator.model.domain.ProductPricingSnapshot;
+import com.btlab.fdcalculator.model.domain.ProductRuleSet;
+import com.btlab.fdcalculator.model.dto.ProductDetailsDTO;
+import com.btlab.fdcalculator.model.dto.ProductInterestDTO;
+import com.btlab.fdcalculator.model.dto.ProductRuleDTO;
+import com.btlab.fdcalculator.service.CategoryIndexService;
+import com.btlab.fdcalculator.service.PricingSnapshotService;
+import com.btlab.fdcalculator.util.SingleFlight;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PricingSnapshotServiceImpl implements PricingSnapshotService {
+
+    private final PricingApiClient pricingApiClient;
+    private final CachingPricingApiClient cachingPricingApiClient;
+    private final ProductRulePager productRulePager;
+    private final CategoryIndexService categoryIndexService;
+    @Qualifier("pricingFanOutExecutor")
+    private final ExecutorService pricingFanOutExecutor;
+
+    @Value("${pricing.snapshot.incomplete-retry-ms:30000}")
+    private long incompleteRetryMs;
+
+    private final Map<String, ProductPricingSnapshot> snapshots = new ConcurrentHashMap<>();
+    // Alias index each product's rules were compiled against; amount bounds come from it
+    private final Map<String, CategoryAliasIndex> rulesCompiledWith = new ConcurrentHashMap<>();
+    private final AtomicLong versionSequence = new AtomicLong();
+    // Concurrent misses for a product share one build instead of each calling the API
+    private final SingleFlight<String, ProductPricingSnapshot> snapshotLoads = new SingleFlight<>();
+
+    @Override
+    public ProductPricingSnapshot getSnapshot(String productCode) {
+        ProductPricingSnapshot snapshot = snapshots.get(productCode);
+        if (snapshot != null && snapshot.complete()) {
+            return snapshot;
+        }
+        if (snapshot == null) {
+            // First use: let failures (e.g. unknown product) propagate to the caller
+            return snapshotLoads.execute(productCode, () -> swapIn(build(productCode)));
+        }
+        // Partial snapshot from an earlier failure: retry at most once per interval,
+        // keep serving the old one otherwise
+        if (snapshot.loadedAt().isAfter(LocalDateTime.now().minus(Duration.ofMillis(incompleteRetryMs)))) {
+            return snapshot;
+        }
+        return snapshotLoads.execute(productCode, () -> refresh(productCode));
+    }
+
+    @Override
+    public ProductPricingSnapshot refresh(String productCode) {
+        ProductPricingSnapshot previous = snapshots.get(productCode);
+        try {
+            // Rebuild from the live API, not from cached responses that may be older than the snapshot
+            cachingPricingApiClient.invalidateProduct(productCode);
+            ProductPricingSnapshot snapshot = build(productCode);
+            // Last known good: a partial build (rates or rules endpoint down) must not
+            // replace a complete snapshot
+            if (!snapshot.complete() && previous != null && previous.complete()) {
+                log.warn("Pricing snapshot for {} is incomplete. Keeping version {}.",
+                    productCode, previous.version());
+                return previous;
+            }
+            return swapIn(snapshot);
+        } catch (Exception e) {
+            if (previous == null) {
+                throw e;
+            }
+            log.error("Failed to refresh pricing snapshot for {}: {}. Keeping version {}.",
+                productCode, e.getMessage(), previous.version());
+            return previous;
+        }
+    }
+
+    @Override
+    public void refreshAll() {
+        List.copyOf(snapshots.keySet()).forEach(this::refresh);
+    }
+
+    private ProductPricingSnapshot swapIn(ProductPricingSnapshot snapshot) {
+        // Only move forward: a slow build must not replace a newer snapshot
+        return snapshots.merge(snapshot.productCode(), snapshot,
+            (current, candidate) -> candidate.version() > current.version() ? candidate : current);
+    }
+
+    private ProductPricingSnapshot build(String productCode) {
+        // Details, rate slabs and rules are independent: fetch them concurrently so a build
+        // takes as long as the slowest call rather than the sum of all of them
+        CompletableFuture<ProductDetailsDTO> productDetailsCall = CompletableFuture.supplyAsync(
+            () -> pricingApiClient.getProductDetails(productCode), pricingFanOutExecutor);
+        CompletableFuture<List<ProductInterestDTO>> ratesCall = CompletableFuture.supplyAsync(
+            () -> pricingApiClient.getInterestRates(productCode), pricingFanOutExecutor);
+        boolean complete = true;
+
+        // Rules are paged; the first page runs here and tells how many more to fetch
+        Map<String, ProductRuleDTO> rules = new HashMap<>();
+        try {
+            productRulePager.fetchAll(productCode, rules);
+        } catch (Exception e) {
+            log.error("Error fetching rules for {}: {}", productCode, e.getMessage());
+            complete = false;
+        }
+
+        ProductDetailsDTO productDetails = join(productDetailsCall);
+
+        Map<String, ProductInterestDTO> rates = new HashMap<>();
+        try {
+            for (ProductInterestDTO rate : join(ratesCall)) {
+                rates.put(rate.rateCode(), rate);
+            }
+        } catch (Exception e) {
+            log.error("Error fetching interest rates for {}: {}", productCode, e.getMessage());
+            complete = false;
+        }
+
+        // Recompile the rules only when they or the alias index changed since the current snapshot
+        ProductPricingSnapshot current = snapshots.get(productCode);
+        CategoryAliasIndex categories = categoryIndexService.index();
+        ProductRuleSet ruleSet;
+        if (current != null && current.rulesByCode().equals(rules) && rulesCompiledWith.get(productCode) == categories) {
+            ruleSet = current.ruleSet();
+        } else {
+            ruleSet = ProductRuleSet.compile(productCode, rules, categories);
+            rulesCompiledWith.put(productCode, categories);
+        }
+
+        ProductPricingSnapshot snapshot = new ProductPricingSnapshot(
+            productCode, productDetails, rates, rules, ruleSet, complete,
+            versionSequence.incrementAndGet(), LocalDateTime.now());
+        log.info("Built pricing snapshot v{} for {}: {} rate slabs, {} rules, complete={}",
+            snapshot.version(), productCode, rates.size(), rules.size(), complete);
+        return snapshot;
+    }
+
+    /**
+     * Wait for a concurrent API call, rethrowing its exception as if it had been called directly
+     */
+    private static <T> T join(CompletableFuture<T> call) {
+        try {
+            return call.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -1,22 +1,33 @@
 package com.btlab.fdcalculator.service.impl;
 
-import com.btlab.fdcalculator.client.PricingApiClient;
+import com.btlab.fdcalculator.client.ProductRulePager;
+import com.btlab.fdcalculator.model.domain.CategoryAliasIndex;
 import com.btlab.fdcalculator.model.dto.CategoryDTO;
-import com.btlab.fdcalculator.model.dto.PagedProductRuleResponse;
 import com.btlab.fdcalculator.model.dto.ProductRuleDTO;
+import com.btlab.fdcalculator.model.dto.RuleSyncResult;
 import com.btlab.fdcalculator.model.entity.Category;
+import com.btlab.fdcalculator.repository.CategoryBatchRepository;
 import com.btlab.fdcalculator.repository.CategoryRepository;
+import com.btlab.fdcalculator.service.CategoryIndexService;
 import com.btlab.fdcalculator.service.ProductRuleSyncService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 @Service
@@ -24,44 +35,73 @@ import java.util.stream.Collectors;
 @Slf4j
 public class ProductRuleSyncServiceImpl implements ProductRuleSyncService {
 
-    private final PricingApiClient pricingApiClient;
+    private final ProductRulePager productRulePager;
     private final CategoryRepository categoryRepository;
+    private final CategoryBatchRepository categoryBatchRepository;
+    private final CategoryIndexService categoryIndexService;
 
-    // Mapping of rule code patterns to category names
-    private static final Map<String, String> RULE_CODE_TO_CATEGORY_NAME = Map.ofEntries(
-        Map.entry("MIN", "Minimum Amount"),
-        Map.entry("MAX", "Maximum Amount"),
-        Map.entry("MAXINT", "Maximum Excess Interest"),
-        Map.entry("JR", "Junior Benefit (Under 18)"),
-        Map.entry("SR", "Senior Citizen Benefit"),
-        Map.entry("DY", "Digi Youth Benefit"),
-        Map.entry("GOLD", "Gold Members Benefit"),
-        Map.entry("SIL", "Silver Members Benefit"),
-        Map.entry("PLAT", "Platinum Members Benefit"),
-        Map.entry("EMP", "Employee Benefit")
-    );
+    private final Object categoryWriteLock = new Object();
+
+    // Rule set hash per product at its last successful sync
+    private final Map<String, String> syncedRuleHashes = new ConcurrentHashMap<>();
 
     @Override
-    @Transactional
-    public void syncProductRulesToCategories(String productCode) {
+    public RuleSyncResult syncProductRulesToCategories(String productCode) {
+        return sync(productCode, false);
+    }
+
+    @Override
+    public RuleSyncResult syncIfChanged(String productCode) {
+        return sync(productCode, true);
+    }
+
+    private RuleSyncResult sync(String productCode, boolean skipUnchanged) {
         log.info("Starting sync of product rules for product code: {}", productCode);
         
         try {
-            // Extract the last 3 digits from product code (e.g., "FD001" -> "001")
-            String productSuffix = extractProductSuffix(productCode);
-            
-            // Fetch all rules from the Product & Pricing API
-            PagedProductRuleResponse response = pricingApiClient.getRules(productCode, 0, 100);
-            List<ProductRuleDTO> rules = response.content();
+            // Fetch all rule pages from the Product & Pricing API (sorted, so new
+            // categories are inserted in a stable order)
+            Map<String, ProductRuleDTO> rulesByCode = new TreeMap<>();
+            productRulePager.fetchAll(productCode, rulesByCode);
+            Collection<ProductRuleDTO> rules = rulesByCode.values();
             
             log.info("Fetched {} rules from Product & Pricing API", rules.size());
             
-            // Process each rule and save/update in Category repository
+            String hash = ruleSetHash(rules);
+            if (skipUnchanged && hash.equals(syncedRuleHashes.get(productCode))) {
+                log.info("Rules of {} unchanged since last sync. Skipping.", productCode);
+                return new RuleSyncResult(productCode, rules.size(), 0, 0, 0, 0, hash, true);
+            }
+            
+            // Make rule code prefixes new to the alias table resolvable
+            categoryIndexService.learn(productCode, rules);
+            
+            // Desired percentage per benefit category name
+            CategoryAliasIndex index = categoryIndexService.index();
+            Map<String, BigDecimal> desired = new LinkedHashMap<>();
+            int skipped = 0;
             for (ProductRuleDTO rule : rules) {
-                processAndSaveRule(rule, productSuffix);
+                BigDecimal percentage = benefitPercentage(rule, index);
+                if (percentage == null) {
+                    skipped++;
+                    continue;
+                }
+                desired.put(benefitCategoryName(rule, index), percentage);
             }
             
-            log.info("Successfully synced {} rules to categories", rules.size());
+            // Diff against the stored categories in one query and write only the changes.
+            // Categories are shared by all products, so concurrent syncs diff and write one at a time.
+            int[] counts;
+            synchronized (categoryWriteLock) {
+                counts = applyDiff(desired);
+            }
+            syncedRuleHashes.put(productCode, hash);
+            
+            RuleSyncResult result = new RuleSyncResult(
+                productCode, rules.size(), counts[0], counts[1], counts[2], skipped, hash, false);
+            log.info("Synced rules of {}: {} inserted, {} updated, {} unchanged, {} skipped",
+                productCode, result.inserted(), result.updated(), result.unchanged(), result.skipped());
+            return result;
             
         } catch (Exception e) {
             log.error("Error syncing product rules for product code: {}", productCode, e);
@@ -69,101 +109,88 @@ public class ProductRuleSyncServiceImpl implements ProductRuleSyncService {
         }
     }
 
-    private void processAndSaveRule(ProductRuleDTO rule, String productSuffix) {
-        String ruleCode = rule.ruleCode();
-        String ruleName = rule.ruleName();
-        
-        log.debug("Processing rule: {} - {}", ruleCode, ruleName);
-        
-        // Determine the category type from the rule code
-        String categoryType = extractCategoryType(ruleCode, productSuffix);
-        
-        if (categoryType == null) {
-            log.warn("Could not determine category type for rule code: {}", ruleCode);
-            return;
+    /**
+     * Insert or update the categories whose percentage differs from the stored one,
+     * returning the inserted, updated and unchanged counts
+     */
+    private int[] applyDiff(Map<String, BigDecimal> desired) {
+        Map<String, Category> existing = new HashMap<>();
+        if (!desired.isEmpty()) {
+            for (Category category : categoryRepository.findByCategoryNameIn(desired.keySet())) {
+                existing.put(category.getCategoryName(), category);
+            }
         }
-        
-        // For rules like MIN, MAX, MAXINT - these are not categories but constraints
-        // For rules like JR, SR, DY - these are benefit categories
-        if (isBenefitCategory(categoryType)) {
-            saveBenefitCategory(rule, categoryType);
-        } else {
-            log.debug("Rule {} is a constraint, not a benefit category. Skipping category creation.", ruleCode);
+        List<Category> inserts = new ArrayList<>();
+        List<Category> updates = new ArrayList<>();
+        int unchanged = 0;
+        for (Map.Entry<String, BigDecimal> entry : desired.entrySet()) {
+            Category category = existing.get(entry.getKey());
+            if (category == null) {
+                inserts.add(Category.builder()
+                    .categoryName(entry.getKey())
+                    .additionalPercentage(entry.getValue())
+                    .build());
+            } else if (category.getAdditionalPercentage().compareTo(entry.getValue()) != 0) {
+                category.setAdditionalPercentage(entry.getValue());
+                updates.add(category);
+            } else {
+                unchanged++;
+            }
         }
+        categoryBatchRepository.apply(inserts, updates);
+        return new int[] {inserts.size(), updates.size(), unchanged};
     }
 
-    private String extractCategoryType(String ruleCode, String productSuffix) {
-        // Remove the product suffix from the rule code to get the category type
-        // e.g., "MAX001" -> "MAX", "JR001" -> "JR", "MAXINT001" -> "MAXINT"
-        
-        // Check for MAXINT first (longer prefix)
-        if (ruleCode.startsWith("MAXINT")) {
-            return "MAXINT";
-        }
+    /**
+     * Percentage of a benefit rule as stored in the category table (2 decimals),
+     * or null if the rule is a constraint, has an unknown prefix or a non-numeric value
+     */
+    private BigDecimal benefitPercentage(ProductRuleDTO rule, CategoryAliasIndex index) {
+        // Determine the category type from the rule code by longest matching prefix,
+        // e.g. "MAX001" -> MAX, "MAXINT001" -> MAXINT, "JR001" -> JR
+        CategoryAliasIndex.CategoryType categoryType = index.categoryType(rule.ruleCode());
         
-        // Then check other prefixes
-        for (String prefix : RULE_CODE_TO_CATEGORY_NAME.keySet()) {
-            if (ruleCode.startsWith(prefix)) {
-                return prefix;
-            }
+        if (categoryType == null) {
+            log.warn("Could not determine category type for rule code: {}", rule.ruleCode());
+            return null;
         }
         
-        return null;
-    }
-
-    private boolean isBenefitCategory(String categoryType) {
-        // Benefit categories are those that add extra interest
-        // Constraint categories (MIN, MAX, MAXINT) are excluded
-        return categoryType.equals("JR") || 
-               categoryType.equals("SR") || 
-               categoryType.equals("DY") ||
-               categoryType.equals("GOLD") ||
-               categoryType.equals("SIL") ||
-               categoryType.equals("PLAT") ||
-               categoryType.equals("EMP");
-    }
-
-    private void saveBenefitCategory(ProductRuleDTO rule, String categoryType) {
-        String categoryName = RULE_CODE_TO_CATEGORY_NAME.get(categoryType);
-        
-        if (categoryName == null) {
-            categoryName = rule.ruleName(); // Fallback to rule name
+        // For rules like MIN, MAX, MAXINT - these are not categories but constraints
+        // For rules like JR, SR, DY - these are benefit categories
+        if (!categoryType.benefit()) {
+            log.debug("Rule {} is a constraint, not a benefit category. Skipping category creation.", rule.ruleCode());
+            return null;
         }
         
-        BigDecimal additionalPercentage;
         try {
-            additionalPercentage = new BigDecimal(rule.ruleValue());
+            return new BigDecimal(rule.ruleValue()).setScale(2, RoundingMode.HALF_UP);
         } catch (NumberFormatException e) {
             log.error("Invalid rule value for rule {}: {}", rule.ruleCode(), rule.ruleValue());
-            return;
-        }
-        
-        // Check if category already exists
-        Optional<Category> existingCategory = categoryRepository.findByCategoryName(categoryName);
-        
-        if (existingCategory.isPresent()) {
-            // Update existing category
-            Category category = existingCategory.get();
-            category.setAdditionalPercentage(additionalPercentage);
-            categoryRepository.save(category);
-            log.info("Updated category: {} with value: {}", categoryName, additionalPercentage);
-        } else {
-            // Create new category
-            Category newCategory = Category.builder()
-                .categoryName(categoryName)
-                .additionalPercentage(additionalPercentage)
-                .build();
-            categoryRepository.save(newCategory);
-            log.info("Created new category: {} with value: {}", categoryName, additionalPercentage);
+            return null;
         }
     }
 
-    private String extractProductSuffix(String productCode) {
-        // Extract last 3 characters (e.g., "FD001" -> "001")
-        if (productCode.length() >= 3) {
-            return productCode.substring(productCode.length() - 3);
+    /**
+     * SHA-256 over all fields of the rules, in rule code order
+     */
+    private static String ruleSetHash(Collection<ProductRuleDTO> rules) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (ProductRuleDTO rule : rules) {
+                String line = String.join("\u001f", String.valueOf(rule.ruleId()), rule.ruleCode(),
+                    String.valueOf(rule.ruleName()), String.valueOf(rule.ruleType()), String.valueOf(rule.dataType()),
+                    String.valueOf(rule.ruleValue()), String.valueOf(rule.validationType())) + "\n";
+                digest.update(line.getBytes(StandardCharsets.UTF_8));
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
         }
-        return productCode;
+    }
+
+    private String benefitCategoryName(ProductRuleDTO rule, CategoryAliasIndex index) {
+        String categoryName = index.categoryType(rule.ruleCode()).name();
+        return categoryName != null ? categoryName : rule.ruleName(); // Fallback to rule name
     }
 
     @Override
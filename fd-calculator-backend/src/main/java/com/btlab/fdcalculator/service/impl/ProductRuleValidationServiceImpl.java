@@ -1,7 +1,7 @@
 package com.btlab.fdcalculator.service.impl;
 
-import com.btlab.fdcalculator.client.PricingApiClient;
-import com.btlab.fdcalculator.model.dto.ProductRuleDTO;
+import com.btlab.fdcalculator.model.domain.ProductRuleSet;
+import com.btlab.fdcalculator.service.PricingSnapshotService;
 import com.btlab.fdcalculator.service.ProductRuleValidationService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -14,12 +14,13 @@ import java.math.BigDecimal;
 @Slf4j
 public class ProductRuleValidationServiceImpl implements ProductRuleValidationService {
 
-    private final PricingApiClient pricingApiClient;
+    private final PricingSnapshotService pricingSnapshotService;
 
     @Override
     public void validateAmount(String productCode, BigDecimal amount) {
-        BigDecimal minAmount = getMinimumAmount(productCode);
-        BigDecimal maxAmount = getMaximumAmount(productCode);
+        ProductRuleSet ruleSet = ruleSet(productCode);
+        BigDecimal minAmount = ruleSet != null ? ruleSet.minimumAmount() : ProductRuleSet.DEFAULT_MINIMUM_AMOUNT;
+        BigDecimal maxAmount = ruleSet != null ? ruleSet.maximumAmount() : ProductRuleSet.DEFAULT_MAXIMUM_AMOUNT;
         
         if (amount.compareTo(minAmount) < 0) {
             throw new IllegalArgumentException(
@@ -38,51 +39,32 @@ public class ProductRuleValidationServiceImpl implements ProductRuleValidationSe
 
     @Override
     public BigDecimal getMinimumAmount(String productCode) {
-        String suffix = extractProductSuffix(productCode);
-        String ruleCode = "MIN" + suffix;
-        
-        try {
-            ProductRuleDTO rule = pricingApiClient.getRuleByCode(productCode, ruleCode);
-            return new BigDecimal(rule.ruleValue());
-        } catch (Exception e) {
-            log.warn("Could not fetch MIN rule for product {}. Using default minimum.", productCode);
-            return BigDecimal.ZERO;
-        }
+        ProductRuleSet ruleSet = ruleSet(productCode);
+        return ruleSet != null ? ruleSet.minimumAmount() : ProductRuleSet.DEFAULT_MINIMUM_AMOUNT;
     }
 
     @Override
     public BigDecimal getMaximumAmount(String productCode) {
-        String suffix = extractProductSuffix(productCode);
-        String ruleCode = "MAX" + suffix;
-        
-        try {
-            ProductRuleDTO rule = pricingApiClient.getRuleByCode(productCode, ruleCode);
-            return new BigDecimal(rule.ruleValue());
-        } catch (Exception e) {
-            log.warn("Could not fetch MAX rule for product {}. Using default maximum.", productCode);
-            return new BigDecimal("999999999");
-        }
+        ProductRuleSet ruleSet = ruleSet(productCode);
+        return ruleSet != null ? ruleSet.maximumAmount() : ProductRuleSet.DEFAULT_MAXIMUM_AMOUNT;
     }
 
     @Override
     public BigDecimal getMaximumExcessInterest(String productCode) {
-        String suffix = extractProductSuffix(productCode);
-        String ruleCode = "MAXINT" + suffix;
-        
-        try {
-            ProductRuleDTO rule = pricingApiClient.getRuleByCode(productCode, ruleCode);
-            return new BigDecimal(rule.ruleValue());
-        } catch (Exception e) {
-            log.warn("Could not fetch MAXINT rule for product {}. Using default maximum.", productCode);
-            return new BigDecimal("2.00");
-        }
+        ProductRuleSet ruleSet = ruleSet(productCode);
+        return ruleSet != null ? ruleSet.maximumExcessInterest() : ProductRuleSet.DEFAULT_MAXIMUM_EXCESS_INTEREST;
     }
 
-    private String extractProductSuffix(String productCode) {
-        // Extract last 3 characters (e.g., "FD001" -> "001")
-        if (productCode != null && productCode.length() >= 3) {
-            return productCode.substring(productCode.length() - 3);
+    /**
+     * The product's compiled rules from its pricing snapshot, or null (defaults apply) if
+     * pricing is unavailable
+     */
+    private ProductRuleSet ruleSet(String productCode) {
+        try {
+            return pricingSnapshotService.getSnapshot(productCode).ruleSet();
+        } catch (Exception e) {
+            log.warn("Could not load rules for product {}: {}. Using default limits.", productCode, e.getMessage());
+            return null;
         }
-        return "001"; // Default suffix
     }
 }
@@ -0,0 +1,162 @@
+package com.btlab.fdcalculator.service.impl;
+
+import com.btlab.fdcalculator.model.domain.ProductPricingSnapshot;
+import com.btlab.fdcalculator.model.dto.FDCalculationRequest;
+import com.btlab.fdcalculator.model.dto.FDCalculationResponse;
+import com.btlab.fdcalculator.repository.CalculationBatchRepository;
+import com.btlab.fdcalculator.service.QuoteDedupeService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deduplicates identical quotes within a time window.
+ *
+ * A quote is keyed by a SHA-256 over a canonical form of its request (fields in a fixed order,
+ * length-prefixed, the product code resolved), the content of the pricing snapshot it is priced
+ * with (hashed once per snapshot, so nodes holding the same rates and rules agree and any change
+ * gives new keys), the quote date (maturity dates count from it) and the window it falls in.
+ * Within a window a repeated request gets the stored quote back instead of being priced,
+ * computed and inserted again.
+ *
+ * Recent keys are held in a bounded in-memory index on each node. Stored quotes carry their key
+ * in a unique column, so when two nodes (or two concurrent requests) compute the same quote, the
+ * second insert is rejected and that caller returns the first quote instead.
+ */
+@Service
+@RequiredArgsConstructor
+public class QuoteDedupeServiceImpl implements QuoteDedupeService {
+
+    private final CalculationBatchRepository calculationBatchRepository;
+
+    @Value("${fd.dedupe.enabled:false}")
+    private boolean enabled;
+
+    @Value("${fd.dedupe.window-seconds:300}")
+    private long windowSeconds;
+
+    @Value("${fd.dedupe.max-entries:20000}")
+    private long maxEntries;
+
+    private Cache<String, FDCalculationResponse> recentQuotes;
+    // Content hash per snapshot instance; entries go away with the snapshots
+    private final Cache<ProductPricingSnapshot, String> pricingVersions = Caffeine.newBuilder().weakKeys().build();
+    private final AtomicLong storedHits = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        if (windowSeconds < 1) {
+            throw new IllegalStateException("fd.dedupe.window-seconds must be at least 1");
+        }
+        recentQuotes = Caffeine.newBuilder()
+            .expireAfterWrite(Duration.ofSeconds(windowSeconds))
+            .maximumSize(maxEntries)
+            .recordStats()
+            .build();
+    }
+
+    @Override
+    public boolean enabled() {
+        return enabled;
+    }
+
+    @Override
+    public String quoteKey(FDCalculationRequest request, String productCode, ProductPricingSnapshot pricing) {
+        StringBuilder canonical = new StringBuilder(256);
+        append(canonical, productCode);
+        append(canonical, request.currency_code());
+        append(canonical, request.principal_amount() != null ? request.principal_amount().toString() : null);
+        append(canonical, request.tenure_value() != null ? request.tenure_value().toString() : null);
+        append(canonical, request.tenure_unit());
+        append(canonical, request.interest_type());
+        append(canonical, request.compounding_frequency());
+        append(canonical, request.category1_id());
+        append(canonical, request.category2_id());
+        append(canonical, request.cumulative() != null ? request.cumulative().toString() : null);
+        append(canonical, request.payout_freq());
+        append(canonical, pricingVersions.get(pricing, QuoteDedupeServiceImpl::pricingVersion));
+        append(canonical, LocalDate.now().toString());
+        append(canonical, Long.toString(Instant.now().getEpochSecond() / windowSeconds));
+        return sha256(canonical.toString());
+    }
+
+    @Override
+    public Optional<FDCalculationResponse> recent(String quoteKey) {
+        return Optional.ofNullable(recentQuotes.getIfPresent(quoteKey));
+    }
+
+    @Override
+    public Optional<Long> stored(String quoteKey, LocalDateTime requestTimestamp) {
+        Optional<Long> calcId = calculationBatchRepository.findCalcIdByQuoteKey(quoteKey, requestTimestamp);
+        calcId.ifPresent(id -> storedHits.incrementAndGet());
+        return calcId;
+    }
+
+    @Override
+    public void remember(String quoteKey, FDCalculationResponse response) {
+        recentQuotes.put(quoteKey, response);
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        CacheStats s = recentQuotes.stats();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("window_seconds", windowSeconds);
+        stats.put("size", recentQuotes.estimatedSize());
+        stats.put("max_entries", maxEntries);
+        stats.put("hits", s.hitCount());
+        stats.put("misses", s.missCount());
+        stats.put("hit_rate", s.hitRate());
+        stats.put("stored_hits", storedHits.get());
+        stats.put("evictions", s.evictionCount());
+        return stats;
+    }
+
+    /**
+     * Hash of everything a quote is priced from: product details, rate slabs and rules
+     */
+    private static String pricingVersion(ProductPricingSnapshot pricing) {
+        StringBuilder content = new StringBuilder(4096);
+        append(content, String.valueOf(pricing.productDetails()));
+        new TreeMap<>(pricing.ratesByCode()).forEach((code, rate) -> append(content, code + "=" + rate));
+        new TreeMap<>(pricing.rulesByCode()).forEach((code, rule) -> append(content, code + "=" + rule));
+        return sha256(content.toString());
+    }
+
+    // Length-prefixed so that no two different field lists produce the same text
+    private static void append(StringBuilder canonical, String value) {
+        if (value == null) {
+            canonical.append("-;");
+        } else {
+            canonical.append(value.length()).append(':').append(value).append(';');
+        }
+    }
+
+    private static String sha256(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
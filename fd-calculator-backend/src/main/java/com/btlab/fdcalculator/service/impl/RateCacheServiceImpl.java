@@ -1,19 +1,24 @@
 package com.btlab.fdcalculator.service.impl;
 
 import com.btlab.fdcalculator.client.PricingApiClient;
+import com.btlab.fdcalculator.exception.PricingUnavailableException;
 import com.btlab.fdcalculator.model.dto.ProductInterestDTO;
 import com.btlab.fdcalculator.model.entity.RateCache;
 import com.btlab.fdcalculator.repository.RateCacheRepository;
 import com.btlab.fdcalculator.service.RateCacheService;
+import com.btlab.fdcalculator.util.SingleFlight;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class RateCacheServiceImpl implements RateCacheService {
 
     private final RateCacheRepository rateCacheRepository;
@@ -21,14 +26,38 @@ public class RateCacheServiceImpl implements RateCacheService {
 
     private static final long TTL_HOURS = 24;
 
+    private final SingleFlight<String, BigDecimal> baseRateLoads = new SingleFlight<>();
+
     @Override
     public BigDecimal getBaseRate(String productCode) {
         return rateCacheRepository.findById(productCode)
+                .filter(c -> !c.isStale(TTL_HOURS))
+                .map(RateCache::getBaseRate)
+                .orElseGet(() -> baseRateLoads.execute(productCode, () -> loadBaseRate(productCode)));
+    }
+
+    /**
+     * Miss path of getBaseRate. Runs once per product for all concurrent callers; re-reads
+     * the cache first in case another flight refreshed it while this caller was checking.
+     */
+    private BigDecimal loadBaseRate(String productCode) {
+        Optional<RateCache> cached = rateCacheRepository.findById(productCode);
+        return cached
                 .filter(c -> !c.isStale(TTL_HOURS))
                 .map(RateCache::getBaseRate)
                 .orElseGet(() -> {
                     // 1. Call the new Feign client method to get all rate slabs
-                    List<ProductInterestDTO> rates = pricingApiClient.getInterestRates(productCode);
+                    List<ProductInterestDTO> rates;
+                    try {
+                        rates = pricingApiClient.getInterestRates(productCode);
+                    } catch (PricingUnavailableException e) {
+                        // Pricing API down: a stale rate beats failing the calculation
+                        if (cached.isEmpty()) {
+                            throw e;
+                        }
+                        log.warn("Serving stale base rate for {}: {}", productCode, e.getMessage());
+                        return cached.get().getBaseRate();
+                    }
 
                     // 2. Decide which rate to use. We will assume the cumulative rate
                     //    from the first available slab is the base rate.
@@ -0,0 +1,151 @@
+package com.btlab.fdcalculator.service.impl;
+
+import com.btlab.fdcalculator.client.CachingPricingApiClient;
+import com.btlab.fdcalculator.model.dto.RuleSyncJobStatus;
+import com.btlab.fdcalculator.model.dto.RuleSyncResult;
+import com.btlab.fdcalculator.service.ProductRuleSyncService;
+import com.btlab.fdcalculator.service.RuleSyncJobService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RuleSyncJobServiceImpl implements RuleSyncJobService {
+
+    // Finished jobs kept for status polling
+    private static final int RETAINED_JOBS = 20;
+
+    private final ProductRuleSyncService productRuleSyncService;
+    private final CachingPricingApiClient cachingPricingApiClient;
+    @Qualifier("ruleSyncExecutor")
+    private final ExecutorService ruleSyncExecutor;
+
+    @Value("${fd.sync.product-codes:FD001}")
+    private List<String> catalogProductCodes;
+
+    private final AtomicLong jobSequence = new AtomicLong();
+    private final Map<Long, Job> jobs = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Job> eldest) {
+            return size() > RETAINED_JOBS;
+        }
+    };
+    private Job running;
+
+    @Override
+    public synchronized RuleSyncJobStatus start(List<String> productCodes) {
+        if (running != null && !running.isFinished()) {
+            log.info("Rule sync job {} is still running. Not starting another.", running.id);
+            return running.status();
+        }
+
+        Set<String> products = new LinkedHashSet<>();
+        for (String productCode : productCodes == null || productCodes.isEmpty() ? catalogProductCodes : productCodes) {
+            if (productCode != null && !productCode.isBlank()) {
+                products.add(productCode.trim());
+            }
+        }
+        if (products.isEmpty()) {
+            throw new IllegalArgumentException("No product codes to sync");
+        }
+
+        Job job = new Job(jobSequence.incrementAndGet(), products);
+        jobs.put(job.id, job);
+        running = job;
+        log.info("Started rule sync job {} for {} products", job.id, products.size());
+        for (String productCode : products) {
+            ruleSyncExecutor.execute(() -> job.sync(productCode));
+        }
+        return job.status();
+    }
+
+    @Override
+    public synchronized Optional<RuleSyncJobStatus> status(long jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(Job::status);
+    }
+
+    /**
+     * One sync-all run; progress fields are written by pool threads and read by pollers
+     */
+    private final class Job {
+
+        private final long id;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private volatile LocalDateTime finishedAt;
+        private final Map<String, Progress> progress = new LinkedHashMap<>();
+        private final AtomicInteger finished = new AtomicInteger();
+        private final AtomicInteger synced = new AtomicInteger();
+        private final AtomicInteger unchanged = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+
+        private Job(long id, Set<String> productCodes) {
+            this.id = id;
+            productCodes.forEach(productCode -> progress.put(productCode, new Progress()));
+        }
+
+        private void sync(String productCode) {
+            Progress p = progress.get(productCode);
+            p.state = "RUNNING";
+            try {
+                // Sync from the live API, not from cached rule pages
+                cachingPricingApiClient.invalidateProduct(productCode);
+                RuleSyncResult result = productRuleSyncService.syncIfChanged(productCode);
+                p.result = result;
+                if (result.unchanged_since_last_sync()) {
+                    unchanged.incrementAndGet();
+                    p.state = "UNCHANGED";
+                } else {
+                    synced.incrementAndGet();
+                    p.state = "SYNCED";
+                }
+            } catch (Exception e) {
+                failed.incrementAndGet();
+                p.error = e.getMessage();
+                p.state = "FAILED";
+            } finally {
+                if (finished.incrementAndGet() == progress.size()) {
+                    finishedAt = LocalDateTime.now();
+                    log.info("Rule sync job {} finished: {} synced, {} unchanged, {} failed",
+                        id, synced.get(), unchanged.get(), failed.get());
+                }
+            }
+        }
+
+        private boolean isFinished() {
+            return finished.get() == progress.size();
+        }
+
+        private RuleSyncJobStatus status() {
+            List<RuleSyncJobStatus.ProductProgress> products = new ArrayList<>(progress.size());
+            progress.forEach((productCode, p) ->
+                products.add(new RuleSyncJobStatus.ProductProgress(productCode, p.state, p.result, p.error)));
+            LocalDateTime finishedTime = finishedAt;
+            String state = finishedTime == null ? "RUNNING" : failed.get() > 0 ? "COMPLETED_WITH_ERRORS" : "COMPLETED";
+            return new RuleSyncJobStatus(id, state, startedAt.toString(),
+                finishedTime != null ? finishedTime.toString() : null,
+                progress.size(), finished.get(), synced.get(), unchanged.get(), failed.get(), products);
+        }
+    }
+
+    private static final class Progress {
+        private volatile String state = "PENDING";
+        private volatile RuleSyncResult result;
+        private volatile String error;
+    }
+}
@@ -0,0 +1,130 @@
+package com.btlab.fdcalculator.util;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, lock-free memo table of compound growth factors (1 + r/n)^k, keyed by
+ * (rate in hundredths of a basis point, compounding periods per year, period count).
+ *
+ * Effective rates come from a handful of rate slabs plus category add-ons, so the same
+ * factors are requested over and over; a hit replaces the exponentiation with one array
+ * read. The table is direct-mapped: each key hashes to one slot holding an immutable
+ * entry, readers never block, and a colliding insert simply replaces the previous entry.
+ * Hits allocate nothing; a miss computes the factor in BigDecimal and allocates one entry.
+ *
+ * Factors and period counts use the representations of {@link CompoundInterestKernel}. An entry
+ * keeps the 40-digit factor next to the factor-scale one, so amounts returned to callers are
+ * rounded from the precise factor without recomputing it.
+ */
+public final class CompoundFactorTable {
+
+    private final AtomicReferenceArray<Entry> slots;
+    private final int mask;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param entryBudget maximum number of entries to keep; rounded down to a power of two
+     */
+    public CompoundFactorTable(int entryBudget) {
+        if (entryBudget < 1) {
+            throw new IllegalArgumentException("Entry budget must be positive: " + entryBudget);
+        }
+        int capacity = Integer.highestOneBit(entryBudget);
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * (1 + r/n)^(periodsNumerator / periodsDenominator), see {@link CompoundInterestKernel#compoundFactor}
+     */
+    public long compoundFactor(long rateE4, int periodsPerYear, long periodsNumerator, long periodsDenominator) {
+        return entry(rateE4, periodsPerYear, periodsNumerator, periodsDenominator).factor;
+    }
+
+    /**
+     * amount * (1 + r/n)^(periodsNumerator / periodsDenominator) rounded half up to 4 decimals,
+     * see {@link CompoundInterestKernel#compoundAmount}
+     */
+    public BigDecimal compoundAmount(BigDecimal amount, long rateE4, int periodsPerYear, long periodsNumerator,
+                                     long periodsDenominator) {
+        BigDecimal factor = entry(rateE4, periodsPerYear, periodsNumerator, periodsDenominator).preciseFactor;
+        return CompoundInterestKernel.compoundAmount(amount, factor, rateE4, periodsPerYear,
+            periodsNumerator, periodsDenominator);
+    }
+
+    /**
+     * Interest earned on an amount, see {@link CompoundInterestKernel#compoundInterest}
+     */
+    public BigDecimal compoundInterest(BigDecimal amount, long rateE4, int periodsPerYear, long periodsNumerator,
+                                       long periodsDenominator) {
+        BigDecimal factor = entry(rateE4, periodsPerYear, periodsNumerator, periodsDenominator).preciseFactor;
+        return CompoundInterestKernel.compoundInterest(amount, factor, rateE4, periodsPerYear,
+            periodsNumerator, periodsDenominator);
+    }
+
+    /**
+     * Annual percentage yield as a percentage scaled by 10^4, read from the one-year factor
+     */
+    public long apyE4(long rateE4, int periodsPerYear) {
+        return CompoundInterestKernel.yieldE4(compoundFactor(rateE4, periodsPerYear, periodsPerYear, 1));
+    }
+
+    private Entry entry(long rateE4, int periodsPerYear, long periodsNumerator, long periodsDenominator) {
+        // Normalise the period fraction so e.g. 24 months / 12 and 2 years / 1 share an entry
+        long gcd = gcd(periodsNumerator, periodsDenominator);
+        long numerator = periodsNumerator / gcd;
+        long denominator = periodsDenominator / gcd;
+
+        long rateKey = (rateE4 << 16) | periodsPerYear;
+        long periodKey = (numerator << 16) | denominator;
+        int index = slotIndex(rateKey, periodKey);
+
+        Entry entry = slots.get(index);
+        if (entry != null && entry.rateKey == rateKey && entry.periodKey == periodKey) {
+            hits.increment();
+            return entry;
+        }
+        misses.increment();
+        BigDecimal preciseFactor = CompoundInterestKernel.preciseCompoundFactor(rateE4, periodsPerYear, numerator, denominator);
+        Entry created = new Entry(rateKey, periodKey, CompoundInterestKernel.toFactor(preciseFactor), preciseFactor);
+        if (entry != null) {
+            evictions.increment();
+        }
+        slots.lazySet(index, created);
+        return created;
+    }
+
+    public Stats stats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long total = hitCount + missCount;
+        return new Stats(slots.length(), hitCount, missCount, evictions.sum(),
+            total == 0 ? 0.0 : (double) hitCount / total);
+    }
+
+    private int slotIndex(long rateKey, long periodKey) {
+        long h = rateKey * 0x9E3779B97F4A7C15L + periodKey;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return (int) h & mask;
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a == 0 ? 1 : a;
+    }
+
+    private record Entry(long rateKey, long periodKey, long factor, BigDecimal preciseFactor) {}
+
+    public record Stats(int capacity, long hits, long misses, long evictions, double hitRate) {}
+}
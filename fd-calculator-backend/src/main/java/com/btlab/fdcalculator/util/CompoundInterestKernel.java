@@ -0,0 +1,288 @@
+package com.btlab.fdcalculator.util;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point compound interest math on primitive longs.
+ *
+ * Representations:
+ * - Rates are annual percentages scaled by 10^4 ("rateE4"), e.g. 7.25% -> 72500
+ *   (one unit is a hundredth of a basis point, the same precision as CurrencyUtil.formatRate)
+ * - Amounts are scaled by 10^4 ("amountE4"), e.g. 1234.5 -> 12345000, matching the
+ *   4-decimal scale the calculator rounds to before currency formatting
+ * - Growth factors are decimal fixed point scaled by 10^16 ("factorE16"), so exact decimal
+ *   factors such as 1.1485 stay exact and ties round the same way BigDecimal HALF_UP does
+ *
+ * Integer period counts use exponentiation by squaring, so (1 + r/n)^(n*t) costs
+ * O(log(n*t)) multiplications. The methods taking and returning longs are allocation-free
+ * and deterministic, so they can be called from tight batch and projection loops; only
+ * compoundFactor is not, and it is memoized by CompoundFactorTable.
+ *
+ * A factor in factor scale is within 10^-16 of the exact one, which on amounts near the
+ * maximum principal (10^9) can still move the fourth decimal. Amounts returned to callers
+ * are therefore computed by compoundAmount from preciseCompoundFactor, a 40-digit BigDecimal
+ * factor, and equal the exact result rounded half up to 4 decimals; compoundFactor is that
+ * factor rounded to factor scale. The BigDecimal methods are for API boundaries only.
+ */
+public final class CompoundInterestKernel {
+
+    public static final int FACTOR_SCALE = 16;
+    public static final long ONE = 10_000_000_000_000_000L;
+
+    public static final int RATE_SCALE = 4;
+    public static final int AMOUNT_SCALE = 4;
+
+    // rateE4 * RATE_TO_FACTOR = rate as a decimal fraction in factor scale (7.25% -> 0.0725 * 10^16)
+    private static final long RATE_TO_FACTOR = 10_000_000_000L;
+    private static final long LIMB = 100_000_000L;
+
+    // Digits of preciseCompoundFactor: rounding it to scale 4 is exact for any realistic amount
+    private static final MathContext PRECISE = new MathContext(40, RoundingMode.HALF_EVEN);
+    private static final BigDecimal SERIES_EPSILON = BigDecimal.ONE.movePointLeft(PRECISE.getPrecision() + 2);
+    // rateE4 per unit of rate as a decimal fraction: 7.25% -> 72500 -> 0.0725
+    private static final BigDecimal RATE_E4_PER_UNIT = BigDecimal.valueOf(1_000_000);
+    private static final BigDecimal TWO = BigDecimal.valueOf(2);
+    private static final BigDecimal HALF = new BigDecimal("0.5");
+    // An amount from a 40-digit factor is off by far less than this many units of its 4th decimal
+    private static final BigDecimal TIE_TOLERANCE = BigDecimal.ONE.movePointLeft(20);
+
+    private CompoundInterestKernel() {
+    }
+
+    /**
+     * Rate per compounding period, r / n, in factor scale, rounded half up
+     */
+    public static long periodRate(long rateE4, int periodsPerYear) {
+        if (rateE4 < 0 || rateE4 > Long.MAX_VALUE / RATE_TO_FACTOR) {
+            throw new ArithmeticException("Rate out of range: " + rateE4);
+        }
+        return (rateE4 * RATE_TO_FACTOR + periodsPerYear / 2) / periodsPerYear;
+    }
+
+    /**
+     * (1 + r/n)^(periodsNumerator / periodsDenominator) in factor scale, rounded half up from
+     * preciseCompoundFactor. Allocates; look factors up through CompoundFactorTable.
+     */
+    public static long compoundFactor(long rateE4, int periodsPerYear, long periodsNumerator, long periodsDenominator) {
+        return toFactor(preciseCompoundFactor(rateE4, periodsPerYear, periodsNumerator, periodsDenominator));
+    }
+
+    /**
+     * (1 + r/n)^(periodsNumerator / periodsDenominator) to 40 significant digits.
+     *
+     * For tenures expressed in days or months the period count can be fractional
+     * (e.g. 400 days compounded monthly is 12 * 400 / 365 periods); the whole periods are
+     * raised by squaring and the remaining fraction is applied as exp(f * ln(1 + r/n)).
+     */
+    public static BigDecimal preciseCompoundFactor(long rateE4, int periodsPerYear, long periodsNumerator,
+                                                   long periodsDenominator) {
+        if (rateE4 < 0 || periodsPerYear < 1 || periodsNumerator < 0 || periodsDenominator < 1) {
+            throw new ArithmeticException(String.format("Compound factor out of range: rate %d, %d / %d periods, %d per year",
+                rateE4, periodsNumerator, periodsDenominator, periodsPerYear));
+        }
+        // r / n is exact as a fraction; 40 digits of it are plenty for the powers below
+        BigDecimal perPeriod = BigDecimal.valueOf(rateE4)
+            .divide(RATE_E4_PER_UNIT.multiply(BigDecimal.valueOf(periodsPerYear)), PRECISE);
+        BigDecimal base = BigDecimal.ONE.add(perPeriod);
+        BigDecimal factor = base.pow(Math.toIntExact(periodsNumerator / periodsDenominator), PRECISE);
+        long remainder = periodsNumerator % periodsDenominator;
+        if (remainder != 0) {
+            BigDecimal exponent = ln1p(perPeriod).multiply(BigDecimal.valueOf(remainder))
+                .divide(BigDecimal.valueOf(periodsDenominator), PRECISE);
+            factor = factor.multiply(exp(exponent), PRECISE);
+        }
+        return factor;
+    }
+
+    /**
+     * amount * (1 + r/n)^(periodsNumerator / periodsDenominator), the exact value rounded half up
+     * to 4 decimals.
+     *
+     * A 40-digit factor cannot tell an exact tie from a value just below it, e.g. 999999999 at
+     * 7.9% for one month is exactly 1006583332.32675. Over whole periods the amount is rational,
+     * so such near ties are recomputed as amount * N^k / D^k with (1 + r/n) = N / D; over a
+     * fraction of a period it is irrational and cannot be a tie.
+     *
+     * @param factor preciseCompoundFactor of the same rate and periods, e.g. from CompoundFactorTable
+     */
+    public static BigDecimal compoundAmount(BigDecimal amount, BigDecimal factor, long rateE4, int periodsPerYear,
+                                            long periodsNumerator, long periodsDenominator) {
+        BigDecimal principal = amount.setScale(AMOUNT_SCALE, RoundingMode.HALF_UP);
+        BigDecimal product = principal.multiply(factor);
+        if (periodsNumerator % periodsDenominator == 0 && nearTie(product)) {
+            BigInteger denominator = RATE_E4_PER_UNIT.toBigInteger().multiply(BigInteger.valueOf(periodsPerYear));
+            BigInteger numerator = denominator.add(BigInteger.valueOf(rateE4));
+            int periods = Math.toIntExact(periodsNumerator / periodsDenominator);
+            return principal.multiply(new BigDecimal(numerator.pow(periods)))
+                .divide(new BigDecimal(denominator.pow(periods)), AMOUNT_SCALE, RoundingMode.HALF_UP);
+        }
+        return product.setScale(AMOUNT_SCALE, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Interest earned on an amount, compoundAmount minus the amount, rounded half up to 4 decimals
+     */
+    public static BigDecimal compoundInterest(BigDecimal amount, BigDecimal factor, long rateE4, int periodsPerYear,
+                                              long periodsNumerator, long periodsDenominator) {
+        return compoundAmount(amount, factor, rateE4, periodsPerYear, periodsNumerator, periodsDenominator)
+            .subtract(amount.setScale(AMOUNT_SCALE, RoundingMode.HALF_UP));
+    }
+
+    /**
+     * Whether a non-negative value lies within TIE_TOLERANCE units of its 4th decimal of a rounding tie
+     */
+    private static boolean nearTie(BigDecimal value) {
+        BigDecimal units = value.movePointRight(AMOUNT_SCALE);
+        BigDecimal fraction = units.subtract(new BigDecimal(units.toBigInteger()));
+        return fraction.subtract(HALF).abs().compareTo(TIE_TOLERANCE) < 0;
+    }
+
+    /**
+     * Simple interest growth factor, 1 + r * (yearsNumerator / yearsDenominator), in factor scale, rounded half up
+     */
+    public static long simpleFactor(long rateE4, long yearsNumerator, long yearsDenominator) {
+        long growth = Math.multiplyExact(rateE4 * RATE_TO_FACTOR, yearsNumerator);
+        return ONE + (growth + yearsDenominator / 2) / yearsDenominator;
+    }
+
+    /**
+     * base^exponent in factor scale by exponentiation by squaring
+     */
+    public static long pow(long base, long exponent) {
+        long result = ONE;
+        long square = base;
+        long e = exponent;
+        while (e > 0) {
+            if ((e & 1) != 0) {
+                result = multiply(result, square);
+            }
+            e >>>= 1;
+            if (e > 0) {
+                square = multiply(square, square);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Product of two factors, rounded half up
+     */
+    public static long multiply(long a, long b) {
+        return mulScaleRound(a, b);
+    }
+
+    /**
+     * amount * factor, rounded half up to the amount's scale
+     */
+    public static long applyFactor(long amountE4, long factor) {
+        return mulScaleRound(amountE4, factor);
+    }
+
+    /**
+     * Interest earned on an amount for a growth factor: amount * (factor - 1), rounded half up
+     */
+    public static long interest(long amountE4, long factor) {
+        return mulScaleRound(amountE4, factor - ONE);
+    }
+
+    /**
+     * Annual percentage yield, (1 + r/n)^n - 1, as a percentage scaled by 10^4, rounded half up
+     */
+    public static long apyE4(long rateE4, int periodsPerYear) {
+        return yieldE4(pow(ONE + periodRate(rateE4, periodsPerYear), periodsPerYear));
+    }
+
+    /**
+     * Yield of a one-year growth factor, factor - 1, as a percentage scaled by 10^4, rounded half up
+     */
+    public static long yieldE4(long annualFactor) {
+        long growth = annualFactor - ONE;
+        return growth / RATE_TO_FACTOR + ((growth % RATE_TO_FACTOR) * 2 >= RATE_TO_FACTOR ? 1 : 0);
+    }
+
+    /**
+     * round(a * b / 10^16) for non-negative a, b, exact with HALF_UP rounding.
+     * Both operands are split into 10^8 limbs so every partial product fits in a long.
+     */
+    private static long mulScaleRound(long a, long b) {
+        long ah = a / LIMB;
+        long al = a % LIMB;
+        long bh = b / LIMB;
+        long bl = b % LIMB;
+        long cross1 = Math.multiplyExact(ah, bl);
+        long cross2 = Math.multiplyExact(al, bh);
+        long result = Math.multiplyExact(ah, bh);
+        result = Math.addExact(result, cross1 / LIMB);
+        result = Math.addExact(result, cross2 / LIMB);
+        // (cross1 % LIMB + cross2 % LIMB) * LIMB + al * bl < 3 * 10^16
+        long remainder = (cross1 % LIMB + cross2 % LIMB) * LIMB + al * bl;
+        result = Math.addExact(result, remainder / ONE);
+        return (remainder % ONE) * 2 >= ONE ? result + 1 : result;
+    }
+
+    /**
+     * Round a factor from preciseCompoundFactor half up to factor scale
+     */
+    public static long toFactor(BigDecimal factor) {
+        return factor.setScale(FACTOR_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * ln(1 + x) for x >= 0 as 2 * atanh(x / (2 + x)), whose series converges for any such x
+     */
+    private static BigDecimal ln1p(BigDecimal x) {
+        BigDecimal z = x.divide(x.add(TWO), PRECISE);
+        BigDecimal zSquared = z.multiply(z, PRECISE);
+        BigDecimal power = z;
+        BigDecimal sum = BigDecimal.ZERO;
+        for (int k = 1; power.compareTo(SERIES_EPSILON) > 0; k += 2) {
+            sum = sum.add(power.divide(BigDecimal.valueOf(k), PRECISE), PRECISE);
+            power = power.multiply(zSquared, PRECISE);
+        }
+        return sum.multiply(TWO, PRECISE);
+    }
+
+    /**
+     * e^y for y >= 0 by its Taylor series; y is at most ln(1 + r/n) here, so it converges quickly
+     */
+    private static BigDecimal exp(BigDecimal y) {
+        BigDecimal term = BigDecimal.ONE;
+        BigDecimal sum = BigDecimal.ONE;
+        for (int k = 1; term.compareTo(SERIES_EPSILON) > 0; k++) {
+            term = term.multiply(y, PRECISE).divide(BigDecimal.valueOf(k), PRECISE);
+            sum = sum.add(term, PRECISE);
+        }
+        return sum;
+    }
+
+    /**
+     * Convert a percentage rate to rateE4 (rounded half up to a hundredth of a basis point)
+     */
+    public static long toRateE4(BigDecimal ratePct) {
+        return ratePct.setScale(RATE_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Convert an amount to amountE4 (rounded half up to 4 decimals)
+     */
+    public static long toAmountE4(BigDecimal amount) {
+        return amount.setScale(AMOUNT_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Convert amountE4 back to a BigDecimal with 4 decimals
+     */
+    public static BigDecimal fromAmountE4(long amountE4) {
+        return BigDecimal.valueOf(amountE4, AMOUNT_SCALE);
+    }
+
+    /**
+     * Convert rateE4 back to a percentage BigDecimal with 4 decimals
+     */
+    public static BigDecimal fromRateE4(long rateE4) {
+        return BigDecimal.valueOf(rateE4, RATE_SCALE);
+    }
+}
@@ -0,0 +1,85 @@
+package com.btlab.fdcalculator.util;
+
+/**
+ * Calendar arithmetic on epoch days (days since 1970-01-01, as in LocalDate.toEpochDay())
+ * using int math only, for loops over millions of rows where allocating a LocalDate per
+ * event is too slow. Results match LocalDate.plusMonths (day clamped to the month length).
+ *
+ * Civil date conversion follows Howard Hinnant's days_from_civil / civil_from_days.
+ */
+public final class EpochDays {
+
+    private EpochDays() {
+    }
+
+    /**
+     * epochDay + months, like LocalDate.ofEpochDay(epochDay).plusMonths(months).toEpochDay()
+     */
+    public static int plusMonths(int epochDay, int months) {
+        return plusMonthsCivil(toCivil(epochDay), months);
+    }
+
+    /**
+     * Calendar date packed into an int, for repeated plusMonthsCivil calls from the same date
+     */
+    public static int civil(int epochDay) {
+        return toCivil(epochDay);
+    }
+
+    /**
+     * Epoch day of a packed calendar date (see civil) plus months
+     */
+    public static int plusMonthsCivil(int civil, int months) {
+        int year = civil >> 9;
+        int month = (civil >> 5) & 0xF;
+        int day = civil & 0x1F;
+        int total = year * 12 + (month - 1) + months;
+        int newYear = Math.floorDiv(total, 12);
+        int newMonth = Math.floorMod(total, 12) + 1;
+        return fromCivil(newYear, newMonth, Math.min(day, lengthOfMonth(newYear, newMonth)));
+    }
+
+    /**
+     * Months since year 0 of the date's calendar month (year * 12 + month - 1)
+     */
+    public static int monthIndex(int epochDay) {
+        int civil = toCivil(epochDay);
+        return (civil >> 9) * 12 + ((civil >> 5) & 0xF) - 1;
+    }
+
+    /**
+     * Epoch day of a calendar date
+     */
+    public static int fromCivil(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = (y >= 0 ? y : y - 399) / 400;
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    /**
+     * Calendar date packed as year << 9 | month << 5 | day
+     */
+    private static int toCivil(int epochDay) {
+        int z = epochDay + 719468;
+        int era = (z >= 0 ? z : z - 146096) / 146097;
+        int dayOfEra = z - era * 146097;
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int mp = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * mp + 2) / 5 + 1;
+        int month = mp < 10 ? mp + 3 : mp - 9;
+        int year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        return (year << 9) | (month << 5) | day;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        return switch (month) {
+            case 2 -> (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+}
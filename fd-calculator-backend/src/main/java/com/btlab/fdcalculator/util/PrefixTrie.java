@@ -0,0 +1,53 @@
+package com.btlab.fdcalculator.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Character trie mapping string prefixes to values, for longest-prefix lookups in
+ * O(key length) regardless of how many prefixes are stored. Not thread-safe while being
+ * filled; publish it safely (e.g. through a final or volatile field) and only read after.
+ */
+public final class PrefixTrie<V> {
+
+    private final Node<V> root = new Node<>();
+    private int size;
+
+    public void put(String prefix, V value) {
+        Node<V> node = root;
+        for (int i = 0; i < prefix.length(); i++) {
+            node = node.children.computeIfAbsent(prefix.charAt(i), c -> new Node<>());
+        }
+        if (node.value == null) {
+            size++;
+        }
+        node.value = value;
+    }
+
+    /**
+     * Value of the longest stored prefix of key, or null if no stored prefix matches
+     */
+    public V longestPrefixOf(String key) {
+        Node<V> node = root;
+        V match = root.value;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.children.get(key.charAt(i));
+            if (node == null) {
+                break;
+            }
+            if (node.value != null) {
+                match = node.value;
+            }
+        }
+        return match;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private static final class Node<V> {
+        private final Map<Character, Node<V>> children = new HashMap<>(4);
+        private V value;
+    }
+}
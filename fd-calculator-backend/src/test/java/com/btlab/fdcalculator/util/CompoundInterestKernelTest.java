@@ -0,0 +1,258 @@
+package com.btlab.fdcalculator.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the kernel against exact BigDecimal results over the supported grid: every compounding
+ * frequency, tenures in days, months and years (including fractional periods such as 400 days
+ * compounded monthly), the rate slab bounds with and without the maximum excess interest, and
+ * principals up to the default maximum amount.
+ *
+ * Over whole periods the reference is the exact fraction principal * N^k / D^k; over fractional
+ * periods it is computed to 60 digits, where no result lies on a rounding tie.
+ */
+class CompoundInterestKernelTest {
+
+    private static final MathContext REFERENCE = new MathContext(60, RoundingMode.HALF_EVEN);
+
+    private static final int[] DAYS = {1, 7, 30, 45, 91, 180, 364, 365, 366, 400, 730, 1000, 1826, 3650};
+    private static final int[] MONTHS = {1, 3, 6, 7, 11, 12, 13, 18, 24, 36, 60, 120};
+    private static final int[] YEARS = {1, 2, 3, 5, 10};
+
+    // Mock pricing API slab rates, the same plus the 2.00 default cap on benefits, and extremes
+    private static final String[] RATES = {
+        "7.40", "7.50", "7.60", "7.70", "7.80", "7.85", "7.90", "8.00", "8.30", "8.40", "8.50",
+        "9.40", "10.50", "7.6125", "0.0001"
+    };
+
+    private static final String[] PRINCIPALS = {"1", "10000", "123456.789", "500000", "999999999"};
+
+    @ParameterizedTest(name = "{0} periods per year")
+    @ValueSource(ints = {365, 12, 4, 1})
+    void compoundAmountIsExactResultRoundedHalfUp(int periodsPerYear) {
+        List<String> mismatches = new ArrayList<>();
+        Map<String, BigDecimal> factors = new HashMap<>();
+        for (String rate : RATES) {
+            long rateE4 = CompoundInterestKernel.toRateE4(new BigDecimal(rate));
+            forEachTenure((tenure, unitsPerYear) -> {
+                long numerator = (long) periodsPerYear * tenure;
+                BigDecimal factor = CompoundInterestKernel.preciseCompoundFactor(rateE4, periodsPerYear, numerator, unitsPerYear);
+                for (String principal : PRINCIPALS) {
+                    BigDecimal expected = referenceAmount(new BigDecimal(principal), new BigDecimal(rate),
+                        periodsPerYear, numerator, unitsPerYear, factors);
+                    BigDecimal actual = CompoundInterestKernel.compoundAmount(
+                        new BigDecimal(principal), factor, rateE4, periodsPerYear, numerator, unitsPerYear);
+                    if (expected.compareTo(actual) != 0) {
+                        mismatches.add(String.format("%s at %s%% for %d/%d years: expected %s, got %s",
+                            principal, rate, tenure, unitsPerYear, expected, actual));
+                    }
+                }
+            });
+        }
+        assertTrue(mismatches.isEmpty(), () -> mismatches.size() + " mismatches, e.g. " + mismatches.subList(0, Math.min(5, mismatches.size())));
+    }
+
+    @ParameterizedTest(name = "{0} periods per year")
+    @ValueSource(ints = {365, 12, 4, 1})
+    void compoundFactorIsExactFactorRoundedHalfUp(int periodsPerYear) {
+        List<String> mismatches = new ArrayList<>();
+        for (String rate : RATES) {
+            long rateE4 = CompoundInterestKernel.toRateE4(new BigDecimal(rate));
+            forEachTenure((tenure, unitsPerYear) -> {
+                long numerator = (long) periodsPerYear * tenure;
+                long expected = referenceFactor(new BigDecimal(rate), periodsPerYear, numerator, unitsPerYear)
+                    .setScale(CompoundInterestKernel.FACTOR_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+                long actual = CompoundInterestKernel.compoundFactor(rateE4, periodsPerYear, numerator, unitsPerYear);
+                if (expected != actual) {
+                    mismatches.add(String.format("%s%% for %d/%d years: expected %d, got %d",
+                        rate, tenure, unitsPerYear, expected, actual));
+                }
+            });
+        }
+        assertTrue(mismatches.isEmpty(), () -> mismatches.size() + " mismatches, e.g. " + mismatches.subList(0, Math.min(5, mismatches.size())));
+    }
+
+    @ParameterizedTest(name = "{0} periods per year")
+    @ValueSource(ints = {365, 12, 4, 1})
+    void compoundInterestIsAmountMinusPrincipal(int periodsPerYear) {
+        for (String rate : RATES) {
+            long rateE4 = CompoundInterestKernel.toRateE4(new BigDecimal(rate));
+            BigDecimal factor = CompoundInterestKernel.preciseCompoundFactor(rateE4, periodsPerYear, periodsPerYear, 1);
+            for (String principal : PRINCIPALS) {
+                BigDecimal expected = referenceAmount(new BigDecimal(principal), new BigDecimal(rate),
+                    periodsPerYear, periodsPerYear, 1, new HashMap<>())
+                    .subtract(new BigDecimal(principal));
+                BigDecimal actual = CompoundInterestKernel.compoundInterest(
+                    new BigDecimal(principal), factor, rateE4, periodsPerYear, periodsPerYear, 1);
+                assertEquals(0, expected.compareTo(actual), () -> principal + " at " + rate + "%: expected "
+                    + expected + ", got " + actual);
+            }
+        }
+    }
+
+    @ParameterizedTest(name = "{0} periods per year")
+    @ValueSource(ints = {365, 12, 4, 1})
+    void apyIsExactYieldRoundedHalfUp(int periodsPerYear) {
+        CompoundFactorTable table = new CompoundFactorTable(1024);
+        for (String rate : RATES) {
+            long rateE4 = CompoundInterestKernel.toRateE4(new BigDecimal(rate));
+            BigDecimal expected = referenceFactor(new BigDecimal(rate), periodsPerYear, periodsPerYear, 1)
+                .subtract(BigDecimal.ONE).movePointRight(2).setScale(CompoundInterestKernel.RATE_SCALE, RoundingMode.HALF_UP);
+            BigDecimal actual = CompoundInterestKernel.fromRateE4(table.apyE4(rateE4, periodsPerYear));
+            assertEquals(expected, actual, () -> rate + "%");
+        }
+    }
+
+    @Test
+    void tableReturnsTheSameFactorOnHitAndMiss() {
+        CompoundFactorTable table = new CompoundFactorTable(4096);
+        for (int periodsPerYear : new int[] {365, 12, 4, 1}) {
+            for (String rate : RATES) {
+                long rateE4 = CompoundInterestKernel.toRateE4(new BigDecimal(rate));
+                forEachTenure((tenure, unitsPerYear) -> {
+                    long numerator = (long) periodsPerYear * tenure;
+                    long computed = CompoundInterestKernel.compoundFactor(rateE4, periodsPerYear, numerator, unitsPerYear);
+                    long missesBefore = table.stats().misses();
+                    long first = table.compoundFactor(rateE4, periodsPerYear, numerator, unitsPerYear);
+                    long hitsBefore = table.stats().hits();
+                    long second = table.compoundFactor(rateE4, periodsPerYear, numerator, unitsPerYear);
+                    assertEquals(computed, first);
+                    assertEquals(computed, second);
+                    assertTrue(table.stats().misses() <= missesBefore + 1);
+                    assertEquals(hitsBefore + 1, table.stats().hits());
+                });
+            }
+        }
+    }
+
+    @Test
+    void tableReturnsTheSameAmountOnHitAndMiss() {
+        CompoundFactorTable table = new CompoundFactorTable(64);
+        BigDecimal principal = new BigDecimal("999999999");
+        long rateE4 = CompoundInterestKernel.toRateE4(new BigDecimal("7.90"));
+        BigDecimal miss = table.compoundAmount(principal, rateE4, 12, 12, 12);
+        BigDecimal hit = table.compoundAmount(principal, rateE4, 12, 12, 12);
+        assertEquals(1, table.stats().misses());
+        assertEquals(1, table.stats().hits());
+        // Exactly 1006583332.32675, a tie rounded up
+        assertEquals(new BigDecimal("1006583332.3268"), miss);
+        assertEquals(miss, hit);
+    }
+
+    @Test
+    void tableSharesEntriesBetweenEqualPeriodFractions() {
+        CompoundFactorTable table = new CompoundFactorTable(64);
+        long rateE4 = CompoundInterestKernel.toRateE4(new BigDecimal("8.40"));
+        long months = table.compoundFactor(rateE4, 4, 4 * 24, 12);
+        long years = table.compoundFactor(rateE4, 4, 4 * 2, 1);
+        assertEquals(months, years);
+        assertEquals(1, table.stats().misses());
+        assertEquals(1, table.stats().hits());
+    }
+
+    @Test
+    void tableReturnsTheSameFactorAfterEviction() {
+        // One slot: every other key evicts the previous entry, so each lookup is a miss
+        CompoundFactorTable table = new CompoundFactorTable(1);
+        long rateE4 = CompoundInterestKernel.toRateE4(new BigDecimal("7.60"));
+        long year = CompoundInterestKernel.compoundFactor(rateE4, 12, 12, 1);
+        long days = CompoundInterestKernel.compoundFactor(rateE4, 12, 12 * 400, 365);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(year, table.compoundFactor(rateE4, 12, 12, 1));
+            assertEquals(days, table.compoundFactor(rateE4, 12, 12 * 400, 365));
+        }
+        assertEquals(6, table.stats().misses());
+        assertEquals(5, table.stats().evictions());
+    }
+
+    private interface TenureConsumer {
+        void accept(int tenure, int unitsPerYear);
+    }
+
+    private static void forEachTenure(TenureConsumer consumer) {
+        for (int days : DAYS) {
+            consumer.accept(days, 365);
+        }
+        for (int months : MONTHS) {
+            consumer.accept(months, 12);
+        }
+        for (int years : YEARS) {
+            consumer.accept(years, 1);
+        }
+    }
+
+    /**
+     * principal * (1 + r/n)^(periodsNumerator / periodsDenominator) rounded half up to 4 decimals
+     * @param powers exact N^k and D^k by rate, frequency and k, reused across principals
+     */
+    private static BigDecimal referenceAmount(BigDecimal principal, BigDecimal ratePct, int periodsPerYear,
+                                              long periodsNumerator, long periodsDenominator,
+                                              Map<String, BigDecimal> powers) {
+        if (periodsNumerator % periodsDenominator != 0) {
+            return principal.multiply(referenceFactor(ratePct, periodsPerYear, periodsNumerator, periodsDenominator))
+                .setScale(4, RoundingMode.HALF_UP);
+        }
+        int periods = (int) (periodsNumerator / periodsDenominator);
+        // 1 + r / (100 n) = (100 n + r) / (100 n)
+        BigDecimal denominator = BigDecimal.valueOf(100L * periodsPerYear);
+        String key = ratePct + "/" + periodsPerYear + "^" + periods;
+        BigDecimal numeratorPower = powers.computeIfAbsent(key + "N", k -> denominator.add(ratePct).pow(periods));
+        BigDecimal denominatorPower = powers.computeIfAbsent(key + "D", k -> denominator.pow(periods));
+        return principal.multiply(numeratorPower).divide(denominatorPower, 4, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * (1 + r/n)^(periodsNumerator / periodsDenominator) to 60 digits
+     */
+    private static BigDecimal referenceFactor(BigDecimal ratePct, int periodsPerYear, long periodsNumerator,
+                                              long periodsDenominator) {
+        BigDecimal perPeriod = ratePct.divide(BigDecimal.valueOf(100L * periodsPerYear), REFERENCE);
+        BigDecimal factor = BigDecimal.ONE.add(perPeriod).pow((int) (periodsNumerator / periodsDenominator), REFERENCE);
+        long remainder = periodsNumerator % periodsDenominator;
+        if (remainder != 0) {
+            BigDecimal exponent = log1p(perPeriod).multiply(BigDecimal.valueOf(remainder))
+                .divide(BigDecimal.valueOf(periodsDenominator), REFERENCE);
+            factor = factor.multiply(exp(exponent), REFERENCE);
+        }
+        return factor;
+    }
+
+    /**
+     * ln(1 + x) by its Mercator series, for 0 <= x < 1
+     */
+    private static BigDecimal log1p(BigDecimal x) {
+        BigDecimal epsilon = BigDecimal.ONE.movePointLeft(REFERENCE.getPrecision() + 5);
+        BigDecimal sum = BigDecimal.ZERO;
+        BigDecimal power = x;
+        for (int k = 1; power.compareTo(epsilon) > 0; k++) {
+            BigDecimal term = power.divide(BigDecimal.valueOf(k), REFERENCE);
+            sum = k % 2 == 1 ? sum.add(term, REFERENCE) : sum.subtract(term, REFERENCE);
+            power = power.multiply(x, REFERENCE);
+        }
+        return sum;
+    }
+
+    private static BigDecimal exp(BigDecimal y) {
+        BigDecimal epsilon = BigDecimal.ONE.movePointLeft(REFERENCE.getPrecision() + 5);
+        BigDecimal sum = BigDecimal.ONE;
+        BigDecimal term = BigDecimal.ONE;
+        for (int k = 1; term.compareTo(epsilon) > 0; k++) {
+            term = term.multiply(y, REFERENCE).divide(BigDecimal.valueOf(k), REFERENCE);
+            sum = sum.add(term, REFERENCE);
+        }
+        return sum;
+    }
+}